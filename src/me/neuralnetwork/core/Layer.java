@@ -192,8 +192,8 @@ public class Layer {
         //neuronCalculators = parentNetwork.getNeuronCalculators();
         //   neuronCalculators = new CalculatorThread[4];
 //                if (neuronCalculators == null) {
-        for (Neuron neuron : neurons) { // use directly underlying array since its faster
-            neuron.calculate();
+        for (int i = 0; i < neurons.size(); i++) { // use directly underlying list since its faster
+            neurons.get(i).calculate();
         }
     }
 
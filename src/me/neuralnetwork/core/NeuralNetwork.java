@@ -170,10 +170,8 @@ public class NeuralNetwork<L extends LearningRule> {
             throw new VectorSizeMismatchException("Input vector size does not match network input dimension!");
         }
 
-        int i = 0;
-        for (Neuron neuron : this.inputNeurons) {
-            neuron.setInput(inputVector[i]); // set input to the coresponding neuron
-            i++;
+        for (int i = 0; i < inputNeurons.size(); i++) {
+            inputNeurons.get(i).setInput(inputVector[i]); // set input to the coresponding neuron
         }
 
     }
@@ -193,15 +191,42 @@ public class NeuralNetwork<L extends LearningRule> {
         return output;
     }
 
+    /**
+     * Copies network output vector to the specified buffer
+     *
+     * @param outputVector buffer for network output, at least outputs count long
+     */
+    public void getOutput(double[] outputVector) {
+        for (int i = 0; i < outputNeurons.size(); i++) {
+            outputVector[i] = outputNeurons.get(i).getOutput();
+        }
+    }
+
     /**
      * Performs calculation on whole network
      */
     public void calculate() {
-        for (Layer layer : layers) {
-            layer.calculate();
+        for (int i = 0; i < layers.size(); i++) {
+            layers.get(i).calculate();
+        }
+
+        // don't create event objects on every calculation if nobody is listening
+        if (!listeners.isEmpty()) {
+            fireNetworkEvent(new NeuralNetworkEvent(this, NeuralNetworkEventType.CALCULATED));
         }
+    }
 
-        fireNetworkEvent(new NeuralNetworkEvent(this, NeuralNetworkEventType.CALCULATED));
+    /**
+     * Calculates network output for the specified input and copies it to the
+     * specified output buffer. Does not allocate any memory.
+     *
+     * @param inputVector  network input
+     * @param outputVector buffer for network output, at least outputs count long
+     */
+    public void calculate(double[] inputVector, double[] outputVector) {
+        setInput(inputVector);
+        calculate();
+        getOutput(outputVector);
     }
 
     /**
@@ -382,6 +407,16 @@ public class NeuralNetwork<L extends LearningRule> {
         return this.outputNeurons.toArray(a);
     }
 
+    /**
+     * Returns output neuron at specified index position
+     *
+     * @param index output neuron index position
+     * @return output neuron at specified index position
+     */
+    public Neuron getOutputNeuronAt(int index) {
+        return outputNeurons.get(index);
+    }
+
     public int getOutputsCount() {
         return this.outputNeurons.size();
     }
@@ -258,6 +258,26 @@ public class Neuron {
         return inputConnections.toArray(a);
     }
 
+    /**
+     * Returns input connection at specified index position, without copying
+     * connections to a new array
+     *
+     * @param index input connection index position
+     * @return input connection at specified index position
+     */
+    public final Connection getInputConnectionAt(int index) {
+        return inputConnections.get(index);
+    }
+
+    /**
+     * Returns number of input connections
+     *
+     * @return number of input connections
+     */
+    public final int getInputConnectionsCount() {
+        return inputConnections.size();
+    }
+
     /**
      * Returns output connections from this neuron
      *
@@ -268,6 +288,26 @@ public class Neuron {
         return outConnections.toArray(c);
     }
 
+    /**
+     * Returns output connection at specified index position, without copying
+     * connections to a new array
+     *
+     * @param index output connection index position
+     * @return output connection at specified index position
+     */
+    public final Connection getOutConnectionAt(int index) {
+        return outConnections.get(index);
+    }
+
+    /**
+     * Returns number of output connections
+     *
+     * @return number of output connections
+     */
+    public final int getOutConnectionsCount() {
+        return outConnections.size();
+    }
+
     protected void removeInputConnection(Connection conn) {
         inputConnections.remove(conn);
     }
@@ -0,0 +1,238 @@
+package me.neuralnetwork.core.data;
+
+import me.neuralnetwork.core.exception.NeuroException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+
+/**
+ * Binary columnar data set file format, read by MappedDataSet.
+ *
+ * All values are little-endian. Header:
+ *
+ *      int     magic number "NNDS"
+ *      int     format version
+ *      int     input size
+ *      int     output size
+ *      int     rows count
+ *      int     value size in bytes (8 for double, 4 for float)
+ *      int     column names count (zero if there are no names)
+ *      names   for each name: int length of UTF-8 bytes (-1 for null) and the bytes
+ *      padding zero bytes up to the multiple of 8
+ *
+ * Header is followed by columns (inputs, then outputs), each column is rows count
+ * values one after another.
+ */
+final class BinaryDataSetFormat {
+    static final int MAGIC = 0x53444E4E;
+    static final int VERSION = 1;
+    static final int FIXED_HEADER_SIZE = 28;
+    static final Charset CHARSET = Charset.forName("UTF-8");
+
+    /**
+     * Size of the buffer used to write columns
+     */
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private BinaryDataSetFormat() {
+    }
+
+    /**
+     * Writes data set to the file in binary columnar format
+     *
+     * @param dataSet     data set to write
+     * @param filePath    file path
+     * @param floatValues true to store values as floats, false for doubles
+     */
+    static void write(DataSet dataSet, String filePath, boolean floatValues) {
+        if (filePath == null) {
+            throw new IllegalArgumentException("File path is null!");
+        }
+
+        int inputSize = dataSet.getInputSize();
+        int outputSize = dataSet.getOutputSize();
+        int rowsCount = dataSet.size();
+        int valueSize = floatValues ? 4 : 8;
+        String[] columnNames = dataSet.getColumnNames();
+        int namesCount = hasNames(columnNames) ? columnNames.length : 0;
+
+        try (RandomAccessFile file = new RandomAccessFile(filePath, "rw")) {
+            file.setLength(0);
+            FileChannel channel = file.getChannel();
+
+            byte[][] names = new byte[namesCount][];
+            int headerSize = FIXED_HEADER_SIZE;
+            for (int i = 0; i < namesCount; i++) {
+                names[i] = columnNames[i] == null ? null : columnNames[i].getBytes(CHARSET);
+                headerSize += 4 + (names[i] == null ? 0 : names[i].length);
+            }
+            headerSize = align(headerSize);
+
+            ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(inputSize).putInt(outputSize)
+                    .putInt(rowsCount).putInt(valueSize).putInt(namesCount);
+            for (byte[] name : names) {
+                if (name == null) {
+                    header.putInt(-1);
+                } else {
+                    header.putInt(name.length).put(name);
+                }
+            }
+            header.position(0);
+            writeFully(channel, header);
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            for (int column = 0; column < inputSize + outputSize; column++) {
+                int written = 0;
+                Iterator<DataSetRow> iterator = dataSet.iterator();
+                while (iterator.hasNext()) {
+                    double value = valueAt(iterator.next(), column, inputSize);
+                    if (floatValues) {
+                        buffer.putFloat((float) value);
+                    } else {
+                        buffer.putDouble(value);
+                    }
+                    if (buffer.remaining() < valueSize) {
+                        buffer.flip();
+                        writeFully(channel, buffer);
+                        buffer.clear();
+                    }
+                    written++;
+                }
+                if (written != rowsCount) {
+                    throw new NeuroException("Data set size changed while writing!");
+                }
+            }
+            buffer.flip();
+            writeFully(channel, buffer);
+        } catch (IOException ex) {
+            throw new NeuroException("Error saving data set file!", ex);
+        }
+    }
+
+    /**
+     * Reads and validates file header
+     *
+     * @param channel  file channel
+     * @param filePath file path, used in error messages
+     * @return file header
+     */
+    static Header readHeader(FileChannel channel, String filePath) throws IOException {
+        ByteBuffer fixed = read(channel, 0, FIXED_HEADER_SIZE);
+        if (fixed.getInt() != MAGIC) {
+            throw new NeuroException("Not a binary data set file: " + filePath);
+        }
+        int version = fixed.getInt();
+        if (version != VERSION) {
+            throw new NeuroException("Unsupported binary data set version: " + version);
+        }
+
+        Header header = new Header();
+        header.inputSize = fixed.getInt();
+        header.outputSize = fixed.getInt();
+        header.rowsCount = fixed.getInt();
+        header.valueSize = fixed.getInt();
+        int namesCount = fixed.getInt();
+        if ((header.inputSize <= 0) || (header.outputSize < 0) || (header.rowsCount < 0)
+                || ((header.valueSize != 4) && (header.valueSize != 8))
+                || ((namesCount != 0) && (namesCount != header.inputSize + header.outputSize))) {
+            throw new NeuroException("Corrupted binary data set header: " + filePath);
+        }
+
+        header.columnNames = new String[header.inputSize + header.outputSize];
+        long position = FIXED_HEADER_SIZE;
+        for (int i = 0; i < namesCount; i++) {
+            int length = read(channel, position, 4).getInt();
+            position += 4;
+            if (length >= 0) {
+                ByteBuffer name = read(channel, position, length);
+                header.columnNames[i] = new String(name.array(), 0, length, CHARSET);
+                position += length;
+            }
+        }
+
+        header.dataOffset = align((int) position);
+        if (channel.size() < header.dataOffset + header.getColumnSize() * header.columnNames.length) {
+            throw new NeuroException("Binary data set file is truncated: " + filePath);
+        }
+        return header;
+    }
+
+    /**
+     * Reads specified number of bytes at the specified position
+     */
+    static ByteBuffer read(FileChannel channel, long position, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of data set file!");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Returns header size rounded up to the multiple of 8
+     */
+    static int align(int size) {
+        return (size + 7) & ~7;
+    }
+
+    private static boolean hasNames(String[] columnNames) {
+        if (columnNames == null) {
+            return false;
+        }
+        for (String name : columnNames) {
+            if (name != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double valueAt(DataSetRow row, int column, int inputSize) {
+        return column < inputSize ? row.getInput()[column] : row.getDesiredOutput()[column - inputSize];
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Values of the file header
+     */
+    static class Header {
+        int inputSize;
+        int outputSize;
+        int rowsCount;
+        int valueSize;
+        String[] columnNames;
+        /**
+         * Position of the first column in the file
+         */
+        long dataOffset;
+
+        /**
+         * Returns size of one column in bytes
+         */
+        long getColumnSize() {
+            return (long) rowsCount * valueSize;
+        }
+
+        /**
+         * Returns position of the specified column in the file
+         */
+        long getColumnOffset(int column) {
+            return dataOffset + column * getColumnSize();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package me.neuralnetwork.core.data;
+
+import java.io.Serializable;
+import java.util.Random;
+
+/**
+ * Shuffles rows inside each block. Rows are not moved between blocks, so larger
+ * blocks give better mixing; the order of blocks still follows the source data set.
+ */
+public class BlockShuffler implements BlockTransform, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Random random;
+    private transient double[] swap;
+
+    public BlockShuffler() {
+        this(new Random());
+    }
+
+    public BlockShuffler(long seed) {
+        this(new Random(seed));
+    }
+
+    public BlockShuffler(Random random) {
+        if (random == null) {
+            throw new IllegalArgumentException("Random cannot be null!");
+        }
+        this.random = random;
+    }
+
+    @Override
+    public void transform(double[] block, int rows, int inputSize, int outputSize) {
+        int stride = inputSize + outputSize;
+        if ((swap == null) || (swap.length != stride)) {
+            swap = new double[stride];
+        }
+
+        for (int i = rows - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            System.arraycopy(block, i * stride, swap, 0, stride);
+            System.arraycopy(block, j * stride, block, i * stride, stride);
+            System.arraycopy(swap, 0, block, j * stride, stride);
+        }
+    }
+}
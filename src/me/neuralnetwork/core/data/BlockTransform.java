@@ -0,0 +1,20 @@
+package me.neuralnetwork.core.data;
+
+/**
+ * Transformation of a block of data set rows, applied by PrefetchingDataSet
+ * on its background thread.
+ *
+ * Block holds rows one after another, each row is inputSize input values followed
+ * by outputSize desired output values. Transform changes the values in place.
+ */
+public interface BlockTransform {
+    /**
+     * Transforms rows of the block in place
+     *
+     * @param block      row values
+     * @param rows       number of rows in the block
+     * @param inputSize  number of input values in a row
+     * @param outputSize number of desired output values in a row
+     */
+    public void transform(double[] block, int rows, int inputSize, int outputSize);
+}
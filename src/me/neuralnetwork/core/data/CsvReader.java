@@ -0,0 +1,475 @@
+package me.neuralnetwork.core.data;
+
+import me.neuralnetwork.core.exception.NeuroException;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming reader of numeric CSV files.
+ *
+ * Reads the input in large byte blocks and parses values directly from the bytes,
+ * without creating strings or other objects for rows and values. Fields may be quoted
+ * ("..." with "" for a quote inside), whitespace around values is ignored, and lines
+ * may end with LF or CRLF. Empty lines are skipped.
+ *
+ * Numbers are parsed with the same result as Double.parseDouble(); plain decimal
+ * numbers with up to 15 significant digits are parsed without it.
+ */
+public class CsvReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int EOF = -1;
+
+    /**
+     * Powers of ten which are exactly representable as doubles
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Largest mantissa which is exactly representable as a double
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private final InputStream in;
+    private final int delimiter;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+
+    /**
+     * Bytes of the current field, without quotes
+     */
+    private byte[] field = new byte[64];
+    private int fieldLength;
+    /**
+     * Buffer used when parsing falls back to Double.parseDouble()
+     */
+    private char[] chars = new char[64];
+
+    private long lineNumber = 1;
+    private long rowsCount = 0;
+    private final long startTime = System.nanoTime();
+    private long lastRowTime = startTime;
+
+    /**
+     * Creates reader for the specified input stream
+     *
+     * @param in        input stream
+     * @param delimiter values delimiter, a single byte character like ',', ';' or '\t'
+     */
+    public CsvReader(InputStream in, char delimiter) {
+        if (in == null) {
+            throw new IllegalArgumentException("Input stream cannot be null!");
+        }
+        if ((delimiter > 127) || (delimiter == '"') || (delimiter == '\n') || (delimiter == '\r')) {
+            throw new IllegalArgumentException("Delimiter must be a single byte character other than quote or new line!");
+        }
+        this.in = in;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Creates reader for the specified file
+     *
+     * @param filePath  path to csv file
+     * @param delimiter values delimiter
+     */
+    public CsvReader(String filePath, char delimiter) {
+        this(openFile(filePath), delimiter);
+    }
+
+    /**
+     * Sets number of the line read next, used in error messages. For readers which
+     * start in the middle of a file; line numbers start at 1 by default.
+     *
+     * @param lineNumber number of the next line in the file
+     */
+    void setLineNumber(long lineNumber) {
+        this.lineNumber = lineNumber;
+    }
+
+    private static InputStream openFile(String filePath) {
+        if (filePath == null) {
+            throw new IllegalArgumentException("File name cannot be null!");
+        }
+        try {
+            return new FileInputStream(filePath);
+        } catch (FileNotFoundException ex) {
+            throw new NeuroException("Could not find data set file!", ex);
+        }
+    }
+
+    /**
+     * Reads the next row as strings, usually column names from the first line
+     *
+     * @return values of the row, null at the end of input
+     */
+    public String[] readHeader() {
+        if (!skipEmptyLines()) {
+            return null;
+        }
+
+        List<String> names = new ArrayList<>();
+        Charset charset = Charset.forName("UTF-8");
+        int terminator;
+        do {
+            terminator = readField();
+            int from = 0;
+            int to = fieldLength;
+            while ((from < to) && isWhitespace(field[from])) {
+                from++;
+            }
+            while ((to > from) && isWhitespace(field[to - 1])) {
+                to--;
+            }
+            names.add(new String(field, from, to - from, charset));
+        } while (terminator == delimiter);
+
+        endLine(terminator);
+        return names.toArray(new String[names.size()]);
+    }
+
+    /**
+     * Reads values of the next row into the specified array. Values after the
+     * first values.length ones are ignored.
+     *
+     * @param values array to fill with row values
+     * @return false at the end of input, true otherwise
+     */
+    public boolean readRow(double[] values) {
+        return readRow(values, 0, values.length);
+    }
+
+    /**
+     * Reads the first count values of the next row into the specified array,
+     * starting at the specified index. Values after the first count ones are ignored.
+     *
+     * @param values array to fill with row values
+     * @param offset index of the first value in the array
+     * @param count  number of values to read
+     * @return false at the end of input, true otherwise
+     */
+    public boolean readRow(double[] values, int offset, int count) {
+        if (!skipEmptyLines()) {
+            return false;
+        }
+
+        int column = 0;
+        int terminator;
+        do {
+            terminator = readField();
+            if (column < count) {
+                values[offset + column] = parseField();
+            }
+            column++;
+        } while (terminator == delimiter);
+
+        if (column < count) {
+            throw new NeuroException("Line " + lineNumber + " has " + column + " values, expected " + count + "!");
+        }
+
+        endLine(terminator);
+        rowsCount++;
+        lastRowTime = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * Reads all rows into the specified data set. Each row must have input values
+     * followed by desired output values, as many as the data set sizes.
+     *
+     * @param dataSet         data set to fill
+     * @param loadColumnNames true if the first line contains column names
+     * @return the data set
+     */
+    public DataSet readDataSet(DataSet dataSet, boolean loadColumnNames) {
+        int inputsCount = dataSet.getInputSize();
+        int outputsCount = dataSet.getOutputSize();
+
+        if (loadColumnNames) {
+            String[] columnNames = readHeader();
+            if (columnNames != null) {
+                dataSet.setColumnNames(columnNames);
+            }
+        }
+
+        // packed data set copies row values, so one row can be reused
+        boolean copiesRows = dataSet instanceof PackedDataSet;
+        double[] values = new double[inputsCount + outputsCount];
+        DataSetRow row = outputsCount > 0 ? new DataSetRow(new double[inputsCount], new double[outputsCount])
+                : new DataSetRow(new double[inputsCount]);
+
+        while (readRow(values)) {
+            if (!copiesRows) {
+                row = outputsCount > 0 ? new DataSetRow(new double[inputsCount], new double[outputsCount])
+                        : new DataSetRow(new double[inputsCount]);
+            }
+            System.arraycopy(values, 0, row.getInput(), 0, inputsCount);
+            if (outputsCount > 0) {
+                System.arraycopy(values, inputsCount, row.getDesiredOutput(), 0, outputsCount);
+            }
+            dataSet.addRow(row);
+        }
+
+        return dataSet;
+    }
+
+    /**
+     * Skips empty lines before the next row
+     *
+     * @return false at the end of input
+     */
+    private boolean skipEmptyLines() {
+        while (true) {
+            int b = peek();
+            if (b == EOF) {
+                return false;
+            }
+            if (b == '\n') {
+                position++;
+                lineNumber++;
+            } else if (b == '\r') {
+                position++;
+            } else {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Reads the next field into the field buffer
+     *
+     * @return byte which ended the field: delimiter, new line or EOF
+     */
+    private int readField() {
+        fieldLength = 0;
+        boolean quoted = false;
+        while (true) {
+            int b = read();
+            if (quoted) {
+                if (b == EOF) {
+                    throw new NeuroException("Unterminated quoted value at line " + lineNumber + "!");
+                } else if (b == '"') {
+                    if (peek() == '"') {
+                        position++;
+                        append((byte) '"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (b == '\n') {
+                        lineNumber++;
+                    }
+                    append((byte) b);
+                }
+            } else if ((b == delimiter) || (b == '\n') || (b == '\r') || (b == EOF)) {
+                return b;
+            } else if (b == '"') {
+                quoted = true;
+            } else {
+                append((byte) b);
+            }
+        }
+    }
+
+    /**
+     * Consumes the end of line after the last field of a row
+     */
+    private void endLine(int terminator) {
+        if (terminator == '\r') {
+            if (peek() == '\n') {
+                position++;
+            }
+            lineNumber++;
+        } else if (terminator == '\n') {
+            lineNumber++;
+        }
+    }
+
+    private void append(byte b) {
+        if (fieldLength == field.length) {
+            field = Arrays.copyOf(field, field.length * 2);
+        }
+        field[fieldLength++] = b;
+    }
+
+    /**
+     * Parses the current field as a double
+     */
+    private double parseField() {
+        int i = 0;
+        int end = fieldLength;
+        while ((i < end) && isWhitespace(field[i])) {
+            i++;
+        }
+        while ((end > i) && isWhitespace(field[end - 1])) {
+            end--;
+        }
+        int start = i;
+
+        boolean negative = false;
+        if ((i < end) && ((field[i] == '-') || (field[i] == '+'))) {
+            negative = field[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int exponent = 0;
+        int significantDigits = 0;
+        boolean digits = false;
+        boolean exact = true;
+
+        for (; (i < end) && isDigit(field[i]); i++) {
+            digits = true;
+            if (significantDigits < 18) {
+                mantissa = mantissa * 10 + (field[i] - '0');
+                if (mantissa != 0) {
+                    significantDigits++;
+                }
+            } else {
+                exponent++;
+                exact &= field[i] == '0';
+            }
+        }
+        if ((i < end) && (field[i] == '.')) {
+            for (i++; (i < end) && isDigit(field[i]); i++) {
+                digits = true;
+                if (significantDigits < 18) {
+                    mantissa = mantissa * 10 + (field[i] - '0');
+                    if (mantissa != 0) {
+                        significantDigits++;
+                    }
+                    exponent--;
+                } else {
+                    exact &= field[i] == '0';
+                }
+            }
+        }
+        if (digits && (i < end) && ((field[i] == 'e') || (field[i] == 'E'))) {
+            i++;
+            boolean negativeExponent = false;
+            if ((i < end) && ((field[i] == '-') || (field[i] == '+'))) {
+                negativeExponent = field[i] == '-';
+                i++;
+            }
+            int exponentValue = 0;
+            boolean exponentDigits = false;
+            for (; (i < end) && isDigit(field[i]); i++) {
+                exponentDigits = true;
+                if (exponentValue < 10000) {
+                    exponentValue = exponentValue * 10 + (field[i] - '0');
+                }
+            }
+            digits = exponentDigits;
+            exponent += negativeExponent ? -exponentValue : exponentValue;
+        }
+
+        if (digits && exact && (i == end)) {
+            if (mantissa == 0) {
+                return negative ? -0d : 0d;
+            }
+            if ((mantissa <= MAX_EXACT_MANTISSA) && (exponent >= -22) && (exponent <= 22)) {
+                // both operands are exact, so the single rounding gives the correctly rounded result
+                double value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+                return negative ? -value : value;
+            }
+        }
+
+        return parseSlow(start, end);
+    }
+
+    /**
+     * Parses field with Double.parseDouble(), for values the fast path cannot handle exactly
+     */
+    private double parseSlow(int from, int to) {
+        int length = to - from;
+        if (chars.length < length) {
+            chars = new char[length];
+        }
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) (field[from + i] & 0xFF);
+        }
+        try {
+            return Double.parseDouble(new String(chars, 0, length));
+        } catch (NumberFormatException ex) {
+            throw new NeuroException("Bad number format in data set file at line " + lineNumber + "!", ex);
+        }
+    }
+
+    private static boolean isDigit(byte b) {
+        return (b >= '0') && (b <= '9');
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return (b == ' ') || (b == '\t');
+    }
+
+    /**
+     * Returns the next byte as unsigned value (0-255), so no byte can be taken for EOF
+     */
+    private int peek() {
+        if ((position == limit) && !fill()) {
+            return EOF;
+        }
+        return buffer[position] & 0xFF;
+    }
+
+    private int read() {
+        if ((position == limit) && !fill()) {
+            return EOF;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    private boolean fill() {
+        try {
+            int count = in.read(buffer, 0, buffer.length);
+            while (count == 0) {
+                count = in.read(buffer, 0, buffer.length);
+            }
+            position = 0;
+            limit = Math.max(count, 0);
+            return count > 0;
+        } catch (IOException ex) {
+            throw new NeuroException("Error reading data set file!", ex);
+        }
+    }
+
+    /**
+     * Returns number of rows read so far
+     *
+     * @return number of rows read
+     */
+    public long getRowsCount() {
+        return rowsCount;
+    }
+
+    /**
+     * Returns reading throughput - number of rows read per second since the reader was created
+     *
+     * @return number of rows read per second
+     */
+    public double getRowsPerSecond() {
+        long time = lastRowTime - startTime;
+        return time > 0 ? rowsCount * 1e9d / time : 0d;
+    }
+
+    @Override
+    public void close() {
+        try {
+            in.close();
+        } catch (IOException ex) {
+            throw new NeuroException("Error closing data set file!", ex);
+        }
+    }
+}
@@ -14,7 +14,9 @@ import java.util.List;
  * for training and testing neural network.
  *
  */
-public class DataSet {
+public class DataSet implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private List<DataSetRow> rows;
     
     /**
@@ -118,6 +120,17 @@ public class DataSet {
         return this.rows.get(idx);
     }
 
+    /**
+     * Returns true if rows can be read in any order with getRowAt() and getRows().
+     * Data sets which produce their rows while iterated return false and must be
+     * read with iterator().
+     *
+     * @return true if data set supports random access to rows
+     */
+    public boolean supportsRandomAccess() {
+        return true;
+    }
+
     public void clear() {
         this.rows.clear();
     }
@@ -180,7 +193,7 @@ public class DataSet {
             sb.append(System.lineSeparator());
         }    
         
-        for(DataSetRow row : rows) {
+        for(DataSetRow row : getRows()) {
             sb.append(row).append(System.lineSeparator());
         }
         
@@ -199,7 +212,7 @@ public class DataSet {
         }
         
         // promeniti
-        for(DataSetRow row : rows) {
+        for(DataSetRow row : getRows()) {
             sb.append(row.toCSV()); // nije dobro jer lepi input i desired output; treba bez toga mozda dodati u toCSV
             sb.append(System.lineSeparator());
         }
@@ -259,7 +272,7 @@ public class DataSet {
             out.println();
         }            
             
-            for (DataSetRow row : this.rows) {
+            for (DataSetRow row : getRows()) {
                 double[] input = row.getInput();
                 for (int i = 0; i < input.length; i++) {
                     out.print(input[i]);
@@ -283,6 +296,27 @@ public class DataSet {
         } 
     }
 
+    /**
+     * Saves this data set to file in binary columnar format with double values,
+     * which can be opened with MappedDataSet.open()
+     *
+     * @param filePath file path
+     */
+    public void saveAsBinary(String filePath) {
+        saveAsBinary(filePath, false);
+    }
+
+    /**
+     * Saves this data set to file in binary columnar format, which can be opened
+     * with MappedDataSet.open()
+     *
+     * @param filePath    file path
+     * @param floatValues true to store values as floats (half the size, float precision)
+     */
+    public void saveAsBinary(String filePath, boolean floatValues) {
+        BinaryDataSetFormat.write(this, filePath, floatValues);
+    }
+
     public static DataSet load(String filePath) {
         ObjectInputStream oistream = null;
 
@@ -317,6 +351,9 @@ public class DataSet {
     /**
      * Creates and returns data set from specified csv file
      * 
+     * Single character delimiters are read with CsvReader; longer delimiters are
+     * treated as regular expressions, as in String.split().
+     * 
      * @param filePath path to csv dataset file to import
      * @param inputsCount number of inputs
      * @param outputsCount number of outputs
@@ -325,12 +362,48 @@ public class DataSet {
      * @return instance of dataset with values from specified file
      */
     public static DataSet createFromFile(String filePath, int inputsCount, int outputsCount, String delimiter, boolean loadColumnNames) {
-        FileReader fileReader = null;
-
         if (filePath == null) throw new IllegalArgumentException("File name cannot be null!");
         if (inputsCount <= 0) throw new IllegalArgumentException("Number of inputs cannot be <= 0");
         if (outputsCount < 0) throw new IllegalArgumentException("Number of outputs cannot be < 0");
         if ((delimiter == null) || delimiter.isEmpty()) throw new IllegalArgumentException("Delimiter cannot be null or empty!");
+
+        char delimiterChar = delimiter.charAt(0);
+        if ((delimiter.length() > 1) || (delimiterChar > 127) || (delimiterChar == '"')) {
+            return createFromFileBySplit(filePath, inputsCount, outputsCount, delimiter, loadColumnNames);
+        }
+
+        DataSet dataSet = new DataSet(inputsCount, outputsCount);
+        dataSet.setFilePath(filePath);
+        try (CsvReader reader = new CsvReader(filePath, delimiterChar)) {
+            return reader.readDataSet(dataSet, loadColumnNames);
+        }
+    }
+
+    /**
+     * Creates and returns data set from specified csv file, parsing it with several threads
+     * (see ParallelCsvLoader). Delimiter must be a single character.
+     *
+     * @param filePath path to csv dataset file to import
+     * @param inputsCount number of inputs
+     * @param outputsCount number of outputs
+     * @param delimiter delimiter of values
+     * @param loadColumnNames true if csv file contains column names in first line, false otherwise
+     * @param threadsCount number of parsing threads
+     * @return instance of dataset with values from specified file
+     */
+    public static DataSet createFromFile(String filePath, int inputsCount, int outputsCount, char delimiter, boolean loadColumnNames, int threadsCount) {
+        if (inputsCount <= 0) throw new IllegalArgumentException("Number of inputs cannot be <= 0");
+        if (outputsCount < 0) throw new IllegalArgumentException("Number of outputs cannot be < 0");
+
+        DataSet dataSet = new DataSet(inputsCount, outputsCount);
+        return new ParallelCsvLoader(threadsCount).load(filePath, dataSet, delimiter, loadColumnNames);
+    }
+
+    /**
+     * Creates data set from csv file, splitting lines with the delimiter regular expression
+     */
+    private static DataSet createFromFileBySplit(String filePath, int inputsCount, int outputsCount, String delimiter, boolean loadColumnNames) {
+        FileReader fileReader = null;
              
         try {
             DataSet dataSet = new DataSet(inputsCount, outputsCount);
@@ -411,7 +484,7 @@ public class DataSet {
         int trainingElementsCount = this.size() * trainSetPercent / 100;
         for (int i = 0; i < trainingElementsCount; i++) {
             int idx = randoms.get(i);
-            trainAndTestSet[0].addRow(this.rows.get(idx));
+            trainAndTestSet[0].addRow(getRowAt(idx));
         }
 
 
@@ -420,7 +493,7 @@ public class DataSet {
         int testElementsCount = this.size() - trainingElementsCount;
         for (int i = 0; i < testElementsCount; i++) {
             int idx = randoms.get(trainingElementsCount + i);
-            trainAndTestSet[1].addRow(this.rows.get(idx));
+            trainAndTestSet[1].addRow(getRowAt(idx));
         }
 
         return trainAndTestSet;
@@ -0,0 +1,93 @@
+package me.neuralnetwork.core.data;
+
+import java.util.Iterator;
+
+/**
+ * Data set which keeps all values in a single double array instead of DataSetRow objects.
+ *
+ * Row layout and iteration are described in PackedDataSet. Code which can work with
+ * offsets may read the values directly from getData(), without any copying.
+ */
+public class FlatDataSet extends PackedDataSet {
+    private static final long serialVersionUID = 1L;
+
+    public FlatDataSet(int inputSize) {
+        this(inputSize, 0, DEFAULT_CAPACITY);
+    }
+
+    public FlatDataSet(int inputSize, int outputSize) {
+        this(inputSize, outputSize, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates empty data set with space reserved for the specified number of rows
+     *
+     * @param inputSize       input vector size
+     * @param outputSize      output vector size, zero for unsupervised data set
+     * @param initialCapacity number of rows to reserve space for
+     */
+    public FlatDataSet(int inputSize, int outputSize, int initialCapacity) {
+        super(inputSize, outputSize, initialCapacity);
+    }
+
+    /**
+     * Creates data set with copies of all rows and column names of the specified data set
+     *
+     * @param dataSet data set to copy
+     */
+    public FlatDataSet(DataSet dataSet) {
+        this(dataSet.getInputSize(), dataSet.getOutputSize(), dataSet.size());
+        setLabel(dataSet.getLabel());
+        if (dataSet.getColumnNames() != null) {
+            setColumnNames(dataSet.getColumnNames().clone());
+        }
+        Iterator<DataSetRow> iterator = dataSet.iterator();
+        while (iterator.hasNext()) {
+            addRow(iterator.next());
+        }
+    }
+
+    @Override
+    protected Object newValues(int length) {
+        return new double[length];
+    }
+
+    @Override
+    protected int lengthOf(Object values) {
+        return ((double[]) values).length;
+    }
+
+    @Override
+    protected void writeValues(int offset, double[] input, double[] output) {
+        double[] data = getData();
+        System.arraycopy(input, 0, data, offset, getInputSize());
+        if (getOutputSize() > 0) {
+            System.arraycopy(output, 0, data, offset + getInputSize(), getOutputSize());
+        }
+    }
+
+    @Override
+    protected void readValues(int offset, double[] input, double[] output) {
+        double[] data = getData();
+        System.arraycopy(data, offset, input, 0, getInputSize());
+        if (getOutputSize() > 0) {
+            System.arraycopy(data, offset + getInputSize(), output, 0, getOutputSize());
+        }
+    }
+
+    @Override
+    protected PackedDataSet newEmptyDataSet() {
+        return new FlatDataSet(getInputSize(), getOutputSize());
+    }
+
+    /**
+     * Returns array with values of all rows. Row i starts at index i * getStride(),
+     * its desired output at i * getStride() + getInputSize(). Array may be longer than
+     * size() * getStride(), and is replaced when the data set grows.
+     *
+     * @return data array
+     */
+    public double[] getData() {
+        return (double[]) getValues();
+    }
+}
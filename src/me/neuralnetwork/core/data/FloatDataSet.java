@@ -0,0 +1,117 @@
+package me.neuralnetwork.core.data;
+
+import java.util.Iterator;
+
+/**
+ * Data set which keeps all values in a single float array, with half of the memory
+ * FlatDataSet needs. Values are rounded to float precision when rows are added.
+ *
+ * Row layout and iteration are the same as in FlatDataSet (see PackedDataSet), the
+ * iterator fills its row with double values of the current row. Float networks (see
+ * FloatFlatNetwork) can read the values directly from getData().
+ */
+public class FloatDataSet extends PackedDataSet {
+    private static final long serialVersionUID = 1L;
+
+    public FloatDataSet(int inputSize) {
+        this(inputSize, 0, DEFAULT_CAPACITY);
+    }
+
+    public FloatDataSet(int inputSize, int outputSize) {
+        this(inputSize, outputSize, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates empty data set with space reserved for the specified number of rows
+     *
+     * @param inputSize       input vector size
+     * @param outputSize      output vector size, zero for unsupervised data set
+     * @param initialCapacity number of rows to reserve space for
+     */
+    public FloatDataSet(int inputSize, int outputSize, int initialCapacity) {
+        super(inputSize, outputSize, initialCapacity);
+    }
+
+    /**
+     * Creates data set with copies of all rows and column names of the specified data set
+     *
+     * @param dataSet data set to copy
+     */
+    public FloatDataSet(DataSet dataSet) {
+        this(dataSet.getInputSize(), dataSet.getOutputSize(), dataSet.size());
+        setLabel(dataSet.getLabel());
+        if (dataSet.getColumnNames() != null) {
+            setColumnNames(dataSet.getColumnNames().clone());
+        }
+        Iterator<DataSetRow> iterator = dataSet.iterator();
+        while (iterator.hasNext()) {
+            addRow(iterator.next());
+        }
+    }
+
+    @Override
+    protected Object newValues(int length) {
+        return new float[length];
+    }
+
+    @Override
+    protected int lengthOf(Object values) {
+        return ((float[]) values).length;
+    }
+
+    @Override
+    protected void writeValues(int offset, double[] input, double[] output) {
+        float[] data = getData();
+        int inputSize = getInputSize();
+        for (int i = 0; i < inputSize; i++) {
+            data[offset + i] = (float) input[i];
+        }
+        for (int i = 0; i < getOutputSize(); i++) {
+            data[offset + inputSize + i] = (float) output[i];
+        }
+    }
+
+    @Override
+    protected void readValues(int offset, double[] input, double[] output) {
+        float[] data = getData();
+        int inputSize = getInputSize();
+        for (int i = 0; i < inputSize; i++) {
+            input[i] = data[offset + i];
+        }
+        for (int i = 0; i < getOutputSize(); i++) {
+            output[i] = data[offset + inputSize + i];
+        }
+    }
+
+    @Override
+    protected PackedDataSet newEmptyDataSet() {
+        return new FloatDataSet(getInputSize(), getOutputSize());
+    }
+
+    /**
+     * Copies input and desired output of the specified row into the given float arrays
+     *
+     * @param row    row index
+     * @param input  array for input values
+     * @param output array for desired output values, may be null if data set has no outputs
+     */
+    public void readRow(int row, float[] input, float[] output) {
+        int offset = offsetOf(row);
+        float[] data = getData();
+        System.arraycopy(data, offset, input, 0, getInputSize());
+        if (getOutputSize() > 0) {
+            System.arraycopy(data, offset + getInputSize(), output, 0, getOutputSize());
+        }
+    }
+
+    /**
+     * Returns array with values of all rows. Row i starts at index i * getStride(),
+     * its desired output at i * getStride() + getInputSize(). Array may be longer than
+     * size() * getStride(), and is replaced when the data set grows.
+     *
+     * @return data array
+     */
+    public float[] getData() {
+        return (float[]) getValues();
+    }
+}
@@ -0,0 +1,243 @@
+package me.neuralnetwork.core.data;
+
+import me.neuralnetwork.core.exception.NeuroException;
+import me.neuralnetwork.core.exception.VectorSizeMismatchException;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only data set backed by a memory-mapped file in binary columnar format
+ * (see DataSet.saveAsBinary()).
+ *
+ * Opening the file only reads the header and maps the columns, values are read
+ * by the operating system on demand. Rows are not kept in memory: iterator returns
+ * the same DataSetRow instance for every row, filled with values of the current row,
+ * so row arrays must be copied if they are kept after the next call. getRowAt()
+ * returns a new row, and readRow() copies values of any row into given arrays.
+ *
+ * Each column is mapped separately, so a single column can hold up to 2 GB of values.
+ * Mapped columns are not serialized: a serialized mapped data set (see DataSet.save())
+ * is a FlatDataSet with a copy of all rows.
+ */
+public class MappedDataSet extends DataSet {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Mapped columns, inputs then outputs
+     */
+    private final transient ByteBuffer[] columns;
+    private final int rowsCount;
+    private final boolean floatValues;
+
+    private MappedDataSet(int inputSize, int outputSize, int rowsCount, boolean floatValues, ByteBuffer[] columns) {
+        super(inputSize, outputSize);
+        this.rowsCount = rowsCount;
+        this.floatValues = floatValues;
+        this.columns = columns;
+    }
+
+    /**
+     * Opens data set file in binary columnar format
+     *
+     * @param filePath path to data set file
+     * @return data set backed by the mapped file
+     */
+    public static MappedDataSet open(String filePath) {
+        if (filePath == null) {
+            throw new IllegalArgumentException("File path is null!");
+        }
+
+        File file = new File(filePath);
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            FileChannel channel = randomAccessFile.getChannel();
+            BinaryDataSetFormat.Header header = BinaryDataSetFormat.readHeader(channel, filePath);
+            if (header.getColumnSize() > Integer.MAX_VALUE) {
+                throw new NeuroException("Data set column is too large to be mapped: " + filePath);
+            }
+
+            ByteBuffer[] columns = new ByteBuffer[header.columnNames.length];
+            for (int c = 0; c < columns.length; c++) {
+                columns[c] = channel.map(FileChannel.MapMode.READ_ONLY, header.getColumnOffset(c), header.getColumnSize())
+                        .order(ByteOrder.LITTLE_ENDIAN);
+            }
+
+            MappedDataSet dataSet = new MappedDataSet(header.inputSize, header.outputSize, header.rowsCount,
+                    header.valueSize == 4, columns);
+            dataSet.setColumnNames(header.columnNames);
+            dataSet.setFilePath(filePath);
+            return dataSet;
+
+        } catch (FileNotFoundException ex) {
+            throw new NeuroException("Could not find data set file!", ex);
+        } catch (IOException ex) {
+            throw new NeuroException("Error reading data set file!", ex);
+        }
+    }
+
+    /**
+     * Returns value at the specified row and column
+     *
+     * @param row    row index
+     * @param column column index, inputs then outputs
+     * @return value
+     */
+    public double getValue(int row, int column) {
+        return floatValues ? columns[column].getFloat(row << 2) : columns[column].getDouble(row << 3);
+    }
+
+    /**
+     * Copies input and desired output of the specified row into the given arrays
+     *
+     * @param row    row index
+     * @param input  array for input values
+     * @param output array for desired output values, may be null if data set has no outputs
+     */
+    public void readRow(int row, double[] input, double[] output) {
+        if ((row < 0) || (row >= rowsCount)) {
+            throw new IndexOutOfBoundsException("Row index out of range: " + row);
+        }
+        int inputSize = getInputSize();
+        if ((input.length != inputSize) || ((getOutputSize() > 0) && (output.length != getOutputSize()))) {
+            throw new VectorSizeMismatchException("Row arrays do not match data set dimensions!");
+        }
+
+        for (int i = 0; i < inputSize; i++) {
+            input[i] = getValue(row, i);
+        }
+        for (int i = 0; i < getOutputSize(); i++) {
+            output[i] = getValue(row, inputSize + i);
+        }
+    }
+
+    /**
+     * Returns a new row with values of the specified row
+     *
+     * @param idx row index
+     * @return row
+     */
+    @Override
+    public DataSetRow getRowAt(int idx) {
+        DataSetRow row = newRow();
+        readRow(idx, row.getInput(), row.getDesiredOutput());
+        return row;
+    }
+
+    /**
+     * Returns iterator over rows, which fills the same row instance for every row
+     *
+     * @return row iterator
+     */
+    @Override
+    public Iterator<DataSetRow> iterator() {
+        return new Iterator<DataSetRow>() {
+            private final DataSetRow row = newRow();
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < rowsCount;
+            }
+
+            @Override
+            public DataSetRow next() {
+                if (next >= rowsCount) {
+                    throw new NoSuchElementException();
+                }
+                readRow(next++, row.getInput(), row.getDesiredOutput());
+                return row;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Mapped data set is read only!");
+            }
+        };
+    }
+
+    /**
+     * Returns read-only list view of rows; each get() creates a new row
+     *
+     * @return list view of rows
+     */
+    @Override
+    public List<DataSetRow> getRows() {
+        return new AbstractList<DataSetRow>() {
+            @Override
+            public DataSetRow get(int index) {
+                return getRowAt(index);
+            }
+
+            @Override
+            public int size() {
+                return rowsCount;
+            }
+        };
+    }
+
+    /**
+     * Replaces this data set with a FlatDataSet copy in serialized form
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        return new FlatDataSet(this);
+    }
+
+    private DataSetRow newRow() {
+        double[] input = new double[getInputSize()];
+        return getOutputSize() > 0 ? new DataSetRow(input, new double[getOutputSize()]) : new DataSetRow(input);
+    }
+
+    @Override
+    public int size() {
+        return rowsCount;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return rowsCount == 0;
+    }
+
+    @Override
+    public boolean isSupervised() {
+        return getOutputSize() > 0;
+    }
+
+    /**
+     * Returns true if values are stored as floats
+     *
+     * @return true if values are stored as floats, false for doubles
+     */
+    public boolean isFloatValues() {
+        return floatValues;
+    }
+
+    @Override
+    public void addRow(DataSetRow row) {
+        throw new NeuroException("Mapped data set is read only!");
+    }
+
+    @Override
+    public void removeRowAt(int idx) {
+        throw new NeuroException("Mapped data set is read only!");
+    }
+
+    @Override
+    public void clear() {
+        throw new NeuroException("Mapped data set is read only!");
+    }
+
+    @Override
+    public void shuffle() {
+        throw new NeuroException("Mapped data set is read only!");
+    }
+}
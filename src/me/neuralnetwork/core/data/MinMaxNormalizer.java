@@ -0,0 +1,86 @@
+package me.neuralnetwork.core.data;
+
+import me.neuralnetwork.core.exception.VectorSizeMismatchException;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Scales input values to [0, 1] range using minimum and maximum of each input:
+ *
+ *      value = (value - min) / (max - min)
+ *
+ * Inputs with the same minimum and maximum become zero.
+ */
+public class MinMaxNormalizer implements BlockTransform, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final double[] min;
+    private final double[] max;
+
+    /**
+     * Creates normalizer with the specified minimum and maximum of each input
+     *
+     * @param min minimum values
+     * @param max maximum values
+     */
+    public MinMaxNormalizer(double[] min, double[] max) {
+        if ((min == null) || (max == null)) {
+            throw new IllegalArgumentException("Min and max values cannot be null!");
+        }
+        if (min.length != max.length) {
+            throw new VectorSizeMismatchException("Min and max vectors must have the same size!");
+        }
+        this.min = min.clone();
+        this.max = max.clone();
+    }
+
+    /**
+     * Creates normalizer with minimum and maximum of inputs in the specified data set
+     *
+     * @param dataSet data set to find input ranges in
+     * @return normalizer for the data set inputs
+     */
+    public static MinMaxNormalizer fit(DataSet dataSet) {
+        int inputSize = dataSet.getInputSize();
+        double[] min = new double[inputSize];
+        double[] max = new double[inputSize];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+
+        Iterator<DataSetRow> iterator = dataSet.iterator();
+        while (iterator.hasNext()) {
+            double[] input = iterator.next().getInput();
+            for (int i = 0; i < inputSize; i++) {
+                min[i] = Math.min(min[i], input[i]);
+                max[i] = Math.max(max[i], input[i]);
+            }
+        }
+        return new MinMaxNormalizer(min, max);
+    }
+
+    @Override
+    public void transform(double[] block, int rows, int inputSize, int outputSize) {
+        if (min.length != inputSize) {
+            throw new VectorSizeMismatchException("Normalizer size does not match data set input size!");
+        }
+
+        int stride = inputSize + outputSize;
+        for (int r = 0; r < rows; r++) {
+            int offset = r * stride;
+            for (int i = 0; i < inputSize; i++) {
+                double range = max[i] - min[i];
+                block[offset + i] = range > 0 ? (block[offset + i] - min[i]) / range : 0d;
+            }
+        }
+    }
+
+    public double[] getMin() {
+        return min.clone();
+    }
+
+    public double[] getMax() {
+        return max.clone();
+    }
+}
@@ -0,0 +1,316 @@
+package me.neuralnetwork.core.data;
+
+import me.neuralnetwork.core.exception.VectorSizeMismatchException;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Base class for data sets which keep all values in a single primitive array instead
+ * of DataSetRow objects, see FlatDataSet (double values) and FloatDataSet (float values).
+ *
+ * Each row takes stride = inputSize + outputSize consecutive values: inputs, then
+ * desired outputs. Rows are copied into the array when added, and iteration goes
+ * through memory sequentially. Iterator returns the same DataSetRow instance for every
+ * row, filled with values of the current row, so row arrays must be copied if they are
+ * kept after the next call.
+ *
+ * This class keeps the rows bookkeeping and moves values with System.arraycopy(), which
+ * works for any array type; subclasses create the array and convert values when rows
+ * are copied into it and out of it.
+ */
+public abstract class PackedDataSet extends DataSet {
+    private static final long serialVersionUID = 1L;
+
+    protected static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Values of all rows, row after row, an array created by newValues()
+     */
+    private Object values;
+    private final int stride;
+    private int rowsCount = 0;
+
+    /**
+     * Creates empty data set with space reserved for the specified number of rows
+     *
+     * @param inputSize       input vector size
+     * @param outputSize      output vector size, zero for unsupervised data set
+     * @param initialCapacity number of rows to reserve space for
+     */
+    protected PackedDataSet(int inputSize, int outputSize, int initialCapacity) {
+        super(inputSize, outputSize);
+        if (inputSize <= 0) {
+            throw new IllegalArgumentException("Input size must be greater than zero!");
+        }
+        if (outputSize < 0) {
+            throw new IllegalArgumentException("Output size cannot be negative!");
+        }
+        this.stride = inputSize + outputSize;
+        this.values = newValues(Math.max(initialCapacity, 1) * stride);
+    }
+
+    /**
+     * Creates values array of the specified length. Called from the constructor,
+     * so it must not use fields of the subclass.
+     *
+     * @param length array length
+     * @return new values array
+     */
+    protected abstract Object newValues(int length);
+
+    /**
+     * Returns length of the specified values array
+     *
+     * @param values values array
+     * @return array length
+     */
+    protected abstract int lengthOf(Object values);
+
+    /**
+     * Copies input and desired output into the values array
+     *
+     * @param offset index of the first row value
+     * @param input  input values
+     * @param output desired output values, not used if data set has no outputs
+     */
+    protected abstract void writeValues(int offset, double[] input, double[] output);
+
+    /**
+     * Copies values of a row from the values array into input and desired output arrays
+     *
+     * @param offset index of the first row value
+     * @param input  array for input values
+     * @param output array for desired output values, not used if data set has no outputs
+     */
+    protected abstract void readValues(int offset, double[] input, double[] output);
+
+    /**
+     * Creates empty data set of the same class and dimensions, which can be added
+     * to this data set with addRows()
+     *
+     * @return empty data set
+     */
+    protected abstract PackedDataSet newEmptyDataSet();
+
+    /**
+     * Returns values array, for subclasses to cast to its type
+     *
+     * @return values array
+     */
+    protected Object getValues() {
+        return values;
+    }
+
+    /**
+     * Copies row values to the end of the values array
+     *
+     * @param row row to add
+     */
+    @Override
+    public void addRow(DataSetRow row) {
+        if (row == null) {
+            throw new IllegalArgumentException("Training data row cannot be null!");
+        }
+        int outputSize = getOutputSize();
+        if (row.getInput().length != getInputSize()) {
+            throw new VectorSizeMismatchException("Input vector size does not match data set input size!");
+        }
+        if ((outputSize > 0) && ((row.getDesiredOutput() == null) || (row.getDesiredOutput().length != outputSize))) {
+            throw new VectorSizeMismatchException("Output vector size does not match data set output size!");
+        }
+
+        ensureCapacity((rowsCount + 1) * stride);
+        writeValues(rowsCount * stride, row.getInput(), row.getDesiredOutput());
+        rowsCount++;
+    }
+
+    /**
+     * Copies all rows of the specified data set, which must be of the same class and have
+     * the same dimensions, to the end of this data set
+     *
+     * @param dataSet data set to copy rows from
+     */
+    public void addRows(PackedDataSet dataSet) {
+        if (dataSet.getClass() != getClass()) {
+            throw new IllegalArgumentException("Rows can only be added from data set of the same class!");
+        }
+        if ((dataSet.getStride() != stride) || (dataSet.getInputSize() != getInputSize())) {
+            throw new VectorSizeMismatchException("Data set dimensions do not match!");
+        }
+        int length = dataSet.size() * stride;
+        ensureCapacity(rowsCount * stride + length);
+        System.arraycopy(dataSet.getValues(), 0, values, rowsCount * stride, length);
+        rowsCount += dataSet.size();
+    }
+
+    private void ensureCapacity(int length) {
+        int capacity = lengthOf(values);
+        if (length > capacity) {
+            resize(Math.max(capacity * 2, length));
+        }
+    }
+
+    private void resize(int length) {
+        Object resized = newValues(length);
+        System.arraycopy(values, 0, resized, 0, Math.min(rowsCount * stride, length));
+        values = resized;
+    }
+
+    /**
+     * Returns index of the first value of the specified row
+     *
+     * @param row row index
+     * @return row offset in values array
+     */
+    protected int offsetOf(int row) {
+        if ((row < 0) || (row >= rowsCount)) {
+            throw new IndexOutOfBoundsException("Row index out of range: " + row);
+        }
+        return row * stride;
+    }
+
+    /**
+     * Copies input and desired output of the specified row into the given arrays
+     *
+     * @param row    row index
+     * @param input  array for input values
+     * @param output array for desired output values, may be null if data set has no outputs
+     */
+    public void readRow(int row, double[] input, double[] output) {
+        readValues(offsetOf(row), input, output);
+    }
+
+    /**
+     * Returns a new row with copies of the values of the specified row
+     *
+     * @param idx row index
+     * @return row
+     */
+    @Override
+    public DataSetRow getRowAt(int idx) {
+        DataSetRow row = newRow();
+        readRow(idx, row.getInput(), row.getDesiredOutput());
+        return row;
+    }
+
+    /**
+     * Returns iterator over rows, which fills the same row instance for every row
+     *
+     * @return row iterator
+     */
+    @Override
+    public Iterator<DataSetRow> iterator() {
+        return new Iterator<DataSetRow>() {
+            private final DataSetRow row = newRow();
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < rowsCount;
+            }
+
+            @Override
+            public DataSetRow next() {
+                if (next >= rowsCount) {
+                    throw new NoSuchElementException();
+                }
+                readRow(next++, row.getInput(), row.getDesiredOutput());
+                return row;
+            }
+
+            @Override
+            public void remove() {
+                removeRowAt(--next);
+            }
+        };
+    }
+
+    /**
+     * Returns list view of rows; each get() creates a new row
+     *
+     * @return list view of rows
+     */
+    @Override
+    public List<DataSetRow> getRows() {
+        return new AbstractList<DataSetRow>() {
+            @Override
+            public DataSetRow get(int index) {
+                return getRowAt(index);
+            }
+
+            @Override
+            public int size() {
+                return rowsCount;
+            }
+        };
+    }
+
+    private DataSetRow newRow() {
+        double[] input = new double[getInputSize()];
+        return getOutputSize() > 0 ? new DataSetRow(input, new double[getOutputSize()]) : new DataSetRow(input);
+    }
+
+    @Override
+    public void removeRowAt(int idx) {
+        int offset = offsetOf(idx);
+        System.arraycopy(values, offset + stride, values, offset, (rowsCount - idx - 1) * stride);
+        rowsCount--;
+    }
+
+    @Override
+    public void clear() {
+        rowsCount = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return rowsCount == 0;
+    }
+
+    @Override
+    public boolean isSupervised() {
+        return getOutputSize() > 0;
+    }
+
+    @Override
+    public int size() {
+        return rowsCount;
+    }
+
+    /**
+     * Shuffles rows in place
+     */
+    @Override
+    public void shuffle() {
+        Random random = new Random();
+        Object swap = newValues(stride);
+        for (int i = rowsCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            System.arraycopy(values, i * stride, swap, 0, stride);
+            System.arraycopy(values, j * stride, values, i * stride, stride);
+            System.arraycopy(swap, 0, values, j * stride, stride);
+        }
+    }
+
+    /**
+     * Releases unused capacity of the values array
+     */
+    public void trimToSize() {
+        if (lengthOf(values) > Math.max(rowsCount, 1) * stride) {
+            resize(Math.max(rowsCount, 1) * stride);
+        }
+    }
+
+    /**
+     * Returns number of values in a row, inputSize + outputSize
+     *
+     * @return row stride
+     */
+    public int getStride() {
+        return stride;
+    }
+}
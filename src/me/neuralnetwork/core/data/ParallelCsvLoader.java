@@ -0,0 +1,287 @@
+package me.neuralnetwork.core.data;
+
+import me.neuralnetwork.core.exception.NeuroException;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads numeric CSV files in parallel.
+ *
+ * File is split into byte ranges aligned on line boundaries, each range is parsed by
+ * its own CsvReader on the executor, and parsed rows are added to the data set in the
+ * original order. Quoted values must not contain new lines, since ranges are split
+ * at any new line. Parse errors report line numbers of the whole file.
+ */
+public class ParallelCsvLoader {
+    /**
+     * Number of chunks for each thread, so threads stay busy when chunks parse at different speed
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Files smaller than this are parsed as one chunk
+     */
+    private static final long MIN_CHUNK_SIZE = 1024 * 1024;
+
+    private final int threadsCount;
+    private final ExecutorService executor;
+
+    private long rowsCount;
+    private double rowsPerSecond;
+
+    /**
+     * Creates loader which parses with the specified number of threads,
+     * started for each load
+     *
+     * @param threadsCount number of parsing threads
+     */
+    public ParallelCsvLoader(int threadsCount) {
+        if (threadsCount <= 0) {
+            throw new IllegalArgumentException("Threads count must be greater than zero!");
+        }
+        this.threadsCount = threadsCount;
+        this.executor = null;
+    }
+
+    /**
+     * Creates loader which parses on the specified executor
+     *
+     * @param executor     executor for parsing tasks
+     * @param threadsCount number of executor threads, used to split the file
+     */
+    public ParallelCsvLoader(ExecutorService executor, int threadsCount) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null!");
+        }
+        if (threadsCount <= 0) {
+            throw new IllegalArgumentException("Threads count must be greater than zero!");
+        }
+        this.threadsCount = threadsCount;
+        this.executor = executor;
+    }
+
+    /**
+     * Loads rows from csv file into the specified data set. Each row must have input
+     * values followed by desired output values, as many as the data set sizes.
+     *
+     * @param filePath        path to csv file
+     * @param dataSet         data set to fill
+     * @param delimiter       values delimiter
+     * @param loadColumnNames true if the first line contains column names
+     * @return the data set
+     */
+    public DataSet load(String filePath, final DataSet dataSet, final char delimiter, boolean loadColumnNames) {
+        if (filePath == null) {
+            throw new IllegalArgumentException("File name cannot be null!");
+        }
+
+        long startTime = System.nanoTime();
+        ExecutorService pool = executor != null ? executor : Executors.newFixedThreadPool(threadsCount);
+        try (RandomAccessFile file = new RandomAccessFile(filePath, "r")) {
+            final FileChannel channel = file.getChannel();
+            long size = channel.size();
+
+            long dataStart = 0;
+            if (loadColumnNames) {
+                dataStart = nextLineStart(channel, 0, size);
+                byte[] header = new byte[(int) dataStart];
+                channel.read(ByteBuffer.wrap(header), 0);
+                String[] columnNames = new CsvReader(new ByteArrayInputStream(header), delimiter).readHeader();
+                if (columnNames != null) {
+                    dataSet.setColumnNames(columnNames);
+                }
+            }
+
+            int chunksCount = (int) Math.max(1, Math.min((long) threadsCount * CHUNKS_PER_THREAD, (size - dataStart) / MIN_CHUNK_SIZE));
+            long[] bounds = new long[chunksCount + 1];
+            bounds[0] = dataStart;
+            bounds[chunksCount] = size;
+            for (int i = 1; i < chunksCount; i++) {
+                long split = dataStart + (size - dataStart) * i / chunksCount;
+                bounds[i] = Math.max(bounds[i - 1], nextLineStart(channel, split - 1, size));
+            }
+
+            List<Future<DataSet>> chunks = new ArrayList<>(chunksCount);
+            for (int i = 0; i < chunksCount; i++) {
+                final long from = bounds[i];
+                final long to = bounds[i + 1];
+                chunks.add(pool.submit(new Callable<DataSet>() {
+                    @Override
+                    public DataSet call() throws IOException {
+                        try {
+                            CsvReader reader = new CsvReader(new RangeInputStream(channel, from, to), delimiter);
+                            return reader.readDataSet(newChunk(dataSet), false);
+                        } catch (NeuroException ex) {
+                            // chunk reader numbers lines from the start of the chunk; the line of
+                            // the error is only counted now, by parsing the chunk again
+                            CsvReader reader = new CsvReader(new RangeInputStream(channel, from, to), delimiter);
+                            reader.setLineNumber(lineNumberAt(channel, from));
+                            reader.readDataSet(newChunk(dataSet), false);
+                            throw ex;
+                        }
+                    }
+                }));
+            }
+
+            // merge in file order; list data set takes parsed rows as they are
+            boolean packed = dataSet instanceof PackedDataSet;
+            long rows = 0;
+            for (Future<DataSet> future : chunks) {
+                DataSet chunk = future.get();
+                if (packed) {
+                    ((PackedDataSet) dataSet).addRows((PackedDataSet) chunk);
+                } else {
+                    for (DataSetRow row : chunk.getRows()) {
+                        dataSet.addRow(row);
+                    }
+                }
+                rows += chunk.size();
+            }
+
+            long time = System.nanoTime() - startTime;
+            this.rowsCount = rows;
+            this.rowsPerSecond = time > 0 ? rows * 1e9d / time : 0d;
+            dataSet.setFilePath(filePath);
+            return dataSet;
+
+        } catch (FileNotFoundException ex) {
+            throw new NeuroException("Could not find data set file!", ex);
+        } catch (IOException ex) {
+            throw new NeuroException("Error reading data set file!", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new NeuroException("Data set loading was interrupted!", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof NeuroException) {
+                throw (NeuroException) ex.getCause();
+            }
+            throw new NeuroException("Error parsing data set file!", ex.getCause());
+        } finally {
+            if (executor == null) {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Creates an empty data set of the same kind and dimensions for a parsed chunk
+     */
+    private static DataSet newChunk(DataSet dataSet) {
+        return dataSet instanceof PackedDataSet ? ((PackedDataSet) dataSet).newEmptyDataSet()
+                : new DataSet(dataSet.getInputSize(), dataSet.getOutputSize());
+    }
+
+    /**
+     * Returns number of the line which starts at the specified position, counting new lines before it
+     */
+    private static long lineNumberAt(FileChannel channel, long position) throws IOException {
+        long lineNumber = 1;
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long current = 0;
+        while (current < position) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), position - current));
+            int count = channel.read(buffer, current);
+            if (count <= 0) {
+                break;
+            }
+            for (int i = 0; i < count; i++) {
+                if (buffer.get(i) == '\n') {
+                    lineNumber++;
+                }
+            }
+            current += count;
+        }
+        return lineNumber;
+    }
+
+    /**
+     * Returns position after the first new line at or after the specified position
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        if (position < 0) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        while (position < size) {
+            buffer.clear();
+            int count = channel.read(buffer, position);
+            if (count <= 0) {
+                break;
+            }
+            for (int i = 0; i < count; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += count;
+        }
+        return size;
+    }
+
+    /**
+     * Returns number of rows read by the last load
+     *
+     * @return number of rows read
+     */
+    public long getRowsCount() {
+        return rowsCount;
+    }
+
+    /**
+     * Returns throughput of the last load, including merging
+     *
+     * @return number of rows loaded per second
+     */
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    /**
+     * Input stream over a byte range of a file channel, using positional reads
+     * so several streams can read the same channel concurrently
+     */
+    private static class RangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        RangeInputStream(FileChannel channel, long from, long to) {
+            this.channel = channel;
+            this.position = from;
+            this.end = to;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int count = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+            if (count < 0) {
+                return -1;
+            }
+            position += count;
+            return count;
+        }
+    }
+}
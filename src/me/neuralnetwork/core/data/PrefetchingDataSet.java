@@ -0,0 +1,338 @@
+package me.neuralnetwork.core.data;
+
+import me.neuralnetwork.core.exception.NeuroException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Read-only view of a data set, which reads rows of the source data set ahead on a
+ * background thread while learning works with the rows read before.
+ *
+ * Each iterator has two blocks of blockSize rows: while the learning thread iterates
+ * one block, the background thread reads the next rows from the source data set into
+ * the other one and applies the transforms (like MinMaxNormalizer or BlockShuffler) to
+ * it. Useful for data sets which read their rows from disk, like StreamingDataSet.
+ *
+ * Iterator returns the same DataSetRow instance for every row, filled with values of the
+ * current row. getRowAt() reads the row from the source data set and applies transforms
+ * to it alone, so rows are neither prefetched nor shuffled by BlockShuffler; for that
+ * reason supportsRandomAccess() returns false and learning rules iterate this data set.
+ *
+ * Creating a new iterator or calling close() stops the background thread of the previous
+ * iterator, and closes the source data set if it is Closeable (like StreamingDataSet), so
+ * an iteration stopped early does not keep its file open. Learning rules close the
+ * training set when learning stops. Transforms are serialized with the data set.
+ */
+public class PrefetchingDataSet extends DataSet implements Closeable {
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+    private final DataSet source;
+    private final int blockSize;
+    private final List<BlockTransform> transforms = new ArrayList<>();
+
+    private transient PrefetchIterator currentIterator;
+
+    public PrefetchingDataSet(DataSet source) {
+        this(source, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Creates prefetching view of the specified data set
+     *
+     * @param source    data set to read rows from
+     * @param blockSize number of rows read ahead
+     */
+    public PrefetchingDataSet(DataSet source, int blockSize) {
+        super(source.getInputSize(), source.getOutputSize());
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be greater than zero!");
+        }
+        this.source = source;
+        this.blockSize = blockSize;
+        setColumnNames(source.getColumnNames());
+        setLabel(source.getLabel());
+    }
+
+    /**
+     * Adds transform applied to each block on the background thread, after transforms added before
+     *
+     * @param transform block transform
+     * @return this data set
+     */
+    public PrefetchingDataSet addTransform(BlockTransform transform) {
+        if (transform == null) {
+            throw new IllegalArgumentException("Transform cannot be null!");
+        }
+        transforms.add(transform);
+        return this;
+    }
+
+    @Override
+    public Iterator<DataSetRow> iterator() {
+        close();
+        currentIterator = new PrefetchIterator();
+        return currentIterator;
+    }
+
+    /**
+     * Stops background thread of the last iterator and waits until it has closed the source
+     */
+    @Override
+    public void close() {
+        if (currentIterator != null) {
+            currentIterator.stop();
+            currentIterator = null;
+        }
+    }
+
+    private void applyTransforms(double[] block, int rows) {
+        for (BlockTransform transform : transforms) {
+            transform.transform(block, rows, getInputSize(), getOutputSize());
+        }
+    }
+
+    /**
+     * Returns a new row with transformed values of the specified source row
+     *
+     * @param idx row index
+     * @return row
+     */
+    @Override
+    public DataSetRow getRowAt(int idx) {
+        int inputSize = getInputSize();
+        int outputSize = getOutputSize();
+        DataSetRow sourceRow = source.getRowAt(idx);
+        double[] values = new double[inputSize + outputSize];
+        System.arraycopy(sourceRow.getInput(), 0, values, 0, inputSize);
+        if (outputSize > 0) {
+            System.arraycopy(sourceRow.getDesiredOutput(), 0, values, inputSize, outputSize);
+        }
+        applyTransforms(values, 1);
+
+        double[] input = new double[inputSize];
+        System.arraycopy(values, 0, input, 0, inputSize);
+        if (outputSize == 0) {
+            return new DataSetRow(input);
+        }
+        double[] output = new double[outputSize];
+        System.arraycopy(values, inputSize, output, 0, outputSize);
+        return new DataSetRow(input, output);
+    }
+
+    @Override
+    public List<DataSetRow> getRows() {
+        return new AbstractList<DataSetRow>() {
+            @Override
+            public DataSetRow get(int index) {
+                return getRowAt(index);
+            }
+
+            @Override
+            public int size() {
+                return source.size();
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return source.size();
+    }
+
+    @Override
+    public boolean supportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return source.isEmpty();
+    }
+
+    @Override
+    public boolean isSupervised() {
+        return source.isSupervised();
+    }
+
+    public DataSet getSource() {
+        return source;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    @Override
+    public void addRow(DataSetRow row) {
+        throw new NeuroException("Prefetching data set is read only!");
+    }
+
+    @Override
+    public void removeRowAt(int idx) {
+        throw new NeuroException("Prefetching data set is read only!");
+    }
+
+    @Override
+    public void clear() {
+        throw new NeuroException("Prefetching data set is read only!");
+    }
+
+    @Override
+    public void shuffle() {
+        throw new NeuroException("Prefetching data set is read only! Use BlockShuffler transform.");
+    }
+
+    /**
+     * Block of rows passed between the background thread and the iterator
+     */
+    private static class Block {
+        final double[] values;
+        int rows;
+        boolean last;
+        RuntimeException error;
+
+        Block(int size) {
+            this.values = new double[size];
+        }
+    }
+
+    /**
+     * Iterator over blocks filled by its background thread
+     */
+    private class PrefetchIterator implements Iterator<DataSetRow>, Runnable {
+        private final int inputSize = getInputSize();
+        private final int outputSize = getOutputSize();
+        private final int stride = inputSize + outputSize;
+
+        private final BlockingQueue<Block> freeBlocks = new ArrayBlockingQueue<>(2);
+        private final BlockingQueue<Block> filledBlocks = new ArrayBlockingQueue<>(2);
+        private final Thread thread;
+
+        private final DataSetRow row = outputSize > 0
+                ? new DataSetRow(new double[inputSize], new double[outputSize])
+                : new DataSetRow(new double[inputSize]);
+        private Block current;
+        private int position;
+
+        PrefetchIterator() {
+            freeBlocks.add(new Block(blockSize * stride));
+            freeBlocks.add(new Block(blockSize * stride));
+            thread = new Thread(this, "DataSet prefetch");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * Fills free blocks with source rows until the source ends
+         */
+        @Override
+        public void run() {
+            try {
+                Iterator<DataSetRow> sourceIterator = null;
+                boolean last = false;
+                while (!last) {
+                    Block block = freeBlocks.take();
+                    try {
+                        if (sourceIterator == null) {
+                            sourceIterator = source.iterator();
+                        }
+                        int rows = 0;
+                        while ((rows < blockSize) && sourceIterator.hasNext()) {
+                            DataSetRow sourceRow = sourceIterator.next();
+                            int offset = rows * stride;
+                            System.arraycopy(sourceRow.getInput(), 0, block.values, offset, inputSize);
+                            if (outputSize > 0) {
+                                System.arraycopy(sourceRow.getDesiredOutput(), 0, block.values, offset + inputSize, outputSize);
+                            }
+                            rows++;
+                        }
+                        applyTransforms(block.values, rows);
+                        block.rows = rows;
+                        last = !sourceIterator.hasNext();
+                    } catch (RuntimeException ex) {
+                        block.rows = 0;
+                        block.error = ex;
+                        last = true;
+                    }
+                    block.last = last;
+                    filledBlocks.put(block);
+                }
+            } catch (InterruptedException ex) {
+                // iterator was stopped
+            } finally {
+                closeSource();
+            }
+        }
+
+        private void closeSource() {
+            if (source instanceof Closeable) {
+                try {
+                    ((Closeable) source).close();
+                } catch (IOException ex) {
+                    // rows are not read any more, nothing to report to
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while ((current == null) || (position == current.rows)) {
+                if ((current != null) && current.last) {
+                    return false;
+                }
+                if (current != null) {
+                    freeBlocks.add(current);
+                }
+                try {
+                    current = filledBlocks.take();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new NeuroException("Interrupted while waiting for data set rows!", ex);
+                }
+                position = 0;
+                if (current.error != null) {
+                    throw new NeuroException("Error reading data set rows!", current.error);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public DataSetRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int offset = position * stride;
+            System.arraycopy(current.values, offset, row.getInput(), 0, inputSize);
+            if (outputSize > 0) {
+                System.arraycopy(current.values, offset + inputSize, row.getDesiredOutput(), 0, outputSize);
+            }
+            position++;
+            return row;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Prefetching data set is read only!");
+        }
+
+        void stop() {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package me.neuralnetwork.core.data;
+
+import me.neuralnetwork.core.exception.NeuroException;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only data set which streams its rows from a csv or binary (see DataSet.saveAsBinary())
+ * file each time it is iterated, so it can be larger than the heap.
+ *
+ * Only a read-ahead block of bufferSize rows is kept in memory. Learning rules which
+ * iterate the training set once per epoch (like BackPropagation and MatrixBackPropagation)
+ * read the file again in every epoch. Iterator returns the same DataSetRow instance for
+ * every row, filled with values of the current row, so row arrays must be copied if they
+ * are kept after the next call. Random access (getRowAt(), getRows()) is not supported;
+ * supportsRandomAccess() returns false, so learning rules which read rows in any order
+ * (like HogwildBackPropagation) iterate it instead.
+ *
+ * Only one iterator reads the file at a time: creating a new iterator closes the previous one.
+ */
+public class StreamingDataSet extends DataSet implements Closeable {
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_BUFFER_SIZE = 4096;
+
+    private final String sourceFile;
+    private final boolean binary;
+    private final char delimiter;
+    private final boolean hasColumnNames;
+
+    /**
+     * Number of rows, -1 until counted
+     */
+    private int rowsCount = -1;
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+    private transient RowReader currentReader;
+
+    private StreamingDataSet(String filePath, int inputSize, int outputSize, boolean binary, char delimiter, boolean hasColumnNames) {
+        super(inputSize, outputSize);
+        this.sourceFile = filePath;
+        this.binary = binary;
+        this.delimiter = delimiter;
+        this.hasColumnNames = hasColumnNames;
+        setFilePath(filePath);
+    }
+
+    /**
+     * Creates data set which streams rows from csv file
+     *
+     * @param filePath       path to csv file
+     * @param inputSize      number of inputs
+     * @param outputSize     number of outputs
+     * @param delimiter      values delimiter
+     * @param hasColumnNames true if the first line contains column names
+     * @return streaming data set
+     */
+    public static StreamingDataSet fromCsv(String filePath, int inputSize, int outputSize, char delimiter, boolean hasColumnNames) {
+        if (filePath == null) throw new IllegalArgumentException("File name cannot be null!");
+        if (inputSize <= 0) throw new IllegalArgumentException("Number of inputs cannot be <= 0");
+        if (outputSize < 0) throw new IllegalArgumentException("Number of outputs cannot be < 0");
+
+        StreamingDataSet dataSet = new StreamingDataSet(filePath, inputSize, outputSize, false, delimiter, hasColumnNames);
+        if (hasColumnNames) {
+            try (CsvReader reader = new CsvReader(filePath, delimiter)) {
+                String[] columnNames = reader.readHeader();
+                if (columnNames != null) {
+                    dataSet.setColumnNames(columnNames);
+                }
+            }
+        }
+        return dataSet;
+    }
+
+    /**
+     * Creates data set which streams rows from binary columnar file
+     *
+     * @param filePath path to binary data set file
+     * @return streaming data set
+     */
+    public static StreamingDataSet fromBinary(String filePath) {
+        if (filePath == null) throw new IllegalArgumentException("File name cannot be null!");
+
+        try (RandomAccessFile file = new RandomAccessFile(filePath, "r")) {
+            BinaryDataSetFormat.Header header = BinaryDataSetFormat.readHeader(file.getChannel(), filePath);
+            StreamingDataSet dataSet = new StreamingDataSet(filePath, header.inputSize, header.outputSize, true, ',', false);
+            dataSet.rowsCount = header.rowsCount;
+            dataSet.setColumnNames(header.columnNames);
+            return dataSet;
+        } catch (FileNotFoundException ex) {
+            throw new NeuroException("Could not find data set file!", ex);
+        } catch (IOException ex) {
+            throw new NeuroException("Error reading data set file!", ex);
+        }
+    }
+
+    /**
+     * Returns iterator which streams rows from the file, and closes iterator created before
+     *
+     * @return row iterator
+     */
+    @Override
+    public Iterator<DataSetRow> iterator() {
+        close();
+        final RowReader reader = openReader();
+        currentReader = reader;
+        final int stride = getInputSize() + getOutputSize();
+
+        return new Iterator<DataSetRow>() {
+            private final DataSetRow row = getOutputSize() > 0
+                    ? new DataSetRow(new double[getInputSize()], new double[getOutputSize()])
+                    : new DataSetRow(new double[getInputSize()]);
+            private final double[] block = new double[bufferSize * stride];
+            private int blockRows = 0;
+            private int blockPosition = 0;
+            private boolean endOfFile = false;
+
+            @Override
+            public boolean hasNext() {
+                if (blockPosition < blockRows) {
+                    return true;
+                }
+                if (endOfFile) {
+                    return false;
+                }
+
+                blockRows = reader.readRows(block, bufferSize);
+                blockPosition = 0;
+                if (blockRows < bufferSize) {
+                    endOfFile = true;
+                    reader.close();
+                }
+                return blockRows > 0;
+            }
+
+            @Override
+            public DataSetRow next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int offset = blockPosition * stride;
+                System.arraycopy(block, offset, row.getInput(), 0, getInputSize());
+                if (getOutputSize() > 0) {
+                    System.arraycopy(block, offset + getInputSize(), row.getDesiredOutput(), 0, getOutputSize());
+                }
+                blockPosition++;
+                return row;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Streaming data set is read only!");
+            }
+        };
+    }
+
+    private RowReader openReader() {
+        if (binary) {
+            return new BinaryRowReader(sourceFile, getInputSize() + getOutputSize());
+        }
+
+        CsvRowReader reader = new CsvRowReader(new CsvReader(sourceFile, delimiter), getInputSize() + getOutputSize());
+        if (hasColumnNames) {
+            reader.csvReader.readHeader();
+        }
+        return reader;
+    }
+
+    /**
+     * Returns number of rows. Rows of csv file are counted by reading the file
+     * when this method is called for the first time.
+     *
+     * @return number of rows
+     */
+    @Override
+    public int size() {
+        if (rowsCount < 0) {
+            int count = 0;
+            try (CsvReader reader = new CsvReader(sourceFile, delimiter)) {
+                if (hasColumnNames) {
+                    reader.readHeader();
+                }
+                double[] none = new double[0];
+                while (reader.readRow(none)) {
+                    count++;
+                }
+            }
+            rowsCount = count;
+        }
+        return rowsCount;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean isSupervised() {
+        return getOutputSize() > 0;
+    }
+
+    /**
+     * Closes the file read by the last iterator
+     */
+    @Override
+    public void close() {
+        if (currentReader != null) {
+            currentReader.close();
+            currentReader = null;
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Sets number of rows read ahead from the file. Used by iterators created afterwards.
+     *
+     * @param bufferSize number of rows in read-ahead block
+     */
+    public void setBufferSize(int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be greater than zero!");
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public DataSetRow getRowAt(int idx) {
+        throw new NeuroException("Streaming data set does not support random access!");
+    }
+
+    @Override
+    public boolean supportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public List<DataSetRow> getRows() {
+        throw new NeuroException("Streaming data set does not support random access!");
+    }
+
+    @Override
+    public void addRow(DataSetRow row) {
+        throw new NeuroException("Streaming data set is read only!");
+    }
+
+    @Override
+    public void removeRowAt(int idx) {
+        throw new NeuroException("Streaming data set is read only!");
+    }
+
+    @Override
+    public void clear() {
+        throw new NeuroException("Streaming data set is read only!");
+    }
+
+    @Override
+    public void shuffle() {
+        throw new NeuroException("Streaming data set is read only!");
+    }
+
+    /**
+     * Reads blocks of rows from a file
+     */
+    private interface RowReader {
+        /**
+         * Reads up to maxRows rows into the block, row after row
+         *
+         * @return number of rows read, less than maxRows at the end of file
+         */
+        int readRows(double[] block, int maxRows);
+
+        void close();
+    }
+
+    private static class CsvRowReader implements RowReader {
+        private final CsvReader csvReader;
+        private final int stride;
+
+        CsvRowReader(CsvReader csvReader, int stride) {
+            this.csvReader = csvReader;
+            this.stride = stride;
+        }
+
+        @Override
+        public int readRows(double[] block, int maxRows) {
+            int rows = 0;
+            while ((rows < maxRows) && csvReader.readRow(block, rows * stride, stride)) {
+                rows++;
+            }
+            return rows;
+        }
+
+        @Override
+        public void close() {
+            csvReader.close();
+        }
+    }
+
+    /**
+     * Reads rows of binary columnar file, a part of each column at a time
+     */
+    private static class BinaryRowReader implements RowReader {
+        private final RandomAccessFile file;
+        private final FileChannel channel;
+        private final BinaryDataSetFormat.Header header;
+        private final int stride;
+        private ByteBuffer columnBuffer;
+        private int nextRow = 0;
+
+        BinaryRowReader(String filePath, int stride) {
+            try {
+                this.file = new RandomAccessFile(filePath, "r");
+                this.channel = file.getChannel();
+                this.header = BinaryDataSetFormat.readHeader(channel, filePath);
+                this.stride = stride;
+            } catch (FileNotFoundException ex) {
+                throw new NeuroException("Could not find data set file!", ex);
+            } catch (IOException ex) {
+                throw new NeuroException("Error reading data set file!", ex);
+            }
+        }
+
+        @Override
+        public int readRows(double[] block, int maxRows) {
+            int rows = Math.min(maxRows, header.rowsCount - nextRow);
+            if (rows <= 0) {
+                return 0;
+            }
+
+            int size = rows * header.valueSize;
+            if ((columnBuffer == null) || (columnBuffer.capacity() < size)) {
+                columnBuffer = ByteBuffer.allocateDirect(maxRows * header.valueSize).order(ByteOrder.LITTLE_ENDIAN);
+            }
+
+            try {
+                for (int c = 0; c < stride; c++) {
+                    long position = header.getColumnOffset(c) + (long) nextRow * header.valueSize;
+                    columnBuffer.clear();
+                    columnBuffer.limit(size);
+                    while (columnBuffer.hasRemaining()) {
+                        if (channel.read(columnBuffer, position + columnBuffer.position()) < 0) {
+                            throw new NeuroException("Unexpected end of data set file!");
+                        }
+                    }
+                    for (int r = 0; r < rows; r++) {
+                        block[r * stride + c] = header.valueSize == 4 ? columnBuffer.getFloat(r << 2) : columnBuffer.getDouble(r << 3);
+                    }
+                }
+            } catch (IOException ex) {
+                throw new NeuroException("Error reading data set file!", ex);
+            }
+
+            nextRow += rows;
+            return rows;
+        }
+
+        @Override
+        public void close() {
+            try {
+                file.close();
+            } catch (IOException ex) {
+                throw new NeuroException("Error closing data set file!", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package me.neuralnetwork.core.flat;
+
+import me.neuralnetwork.core.data.DataSet;
+import me.neuralnetwork.core.data.DataSetRow;
+import me.neuralnetwork.core.exception.NeuroException;
+import me.neuralnetwork.core.exception.VectorSizeMismatchException;
+import me.neuralnetwork.core.transfer.TransferFunction;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Calculates outputs of a FlatNetwork for many input rows at once.
+ *
+ * Rows are split into tiles of tileRows rows, and each tile goes through every layer
+ * as one matrix multiply (tile rows x inputs times inputs x neurons, see
+ * DenseKernels.forward()), so each block of layer weights is read from memory once for
+ * the whole tile instead of once for every row. With an executor, tiles are calculated
+ * in parallel, each worker taking every threadsCount-th tile; results do not depend on
+ * the number of workers.
+ *
+ * Each worker has its own activation buffers, allocated once. The same BatchInference
+ * must not be used by several threads at once; network weights are only read.
+ */
+public class BatchInference {
+    /**
+     * Default number of rows in a tile
+     */
+    public static final int DEFAULT_TILE_ROWS = 64;
+
+    private final FlatNetwork network;
+    private final int tileRows;
+    private final ExecutorService executor;
+    private final int threadsCount;
+
+    /**
+     * Activation buffers of each worker: [worker][layer], tileRows x layer size
+     */
+    private final double[][][] buffers;
+
+    public BatchInference(FlatNetwork network) {
+        this(network, DEFAULT_TILE_ROWS);
+    }
+
+    /**
+     * Creates batch inference calculating tiles on the calling thread
+     *
+     * @param network  network to calculate with
+     * @param tileRows number of rows in a tile
+     */
+    public BatchInference(FlatNetwork network, int tileRows) {
+        this(network, tileRows, null, 1);
+    }
+
+    /**
+     * Creates batch inference calculating tiles in parallel on the specified executor
+     *
+     * @param network      network to calculate with
+     * @param tileRows     number of rows in a tile
+     * @param executor     executor for tile tasks, null to calculate on the calling thread
+     * @param threadsCount number of parallel workers
+     */
+    public BatchInference(FlatNetwork network, int tileRows, ExecutorService executor, int threadsCount) {
+        if (network == null) {
+            throw new IllegalArgumentException("Network cannot be null!");
+        }
+        if (tileRows <= 0) {
+            throw new IllegalArgumentException("Tile rows count must be greater than zero!");
+        }
+        if (threadsCount <= 0) {
+            throw new IllegalArgumentException("Threads count must be greater than zero!");
+        }
+
+        this.network = network;
+        this.tileRows = tileRows;
+        this.executor = executor;
+        this.threadsCount = executor != null ? threadsCount : 1;
+
+        this.buffers = new double[this.threadsCount][network.getLayersCount()][];
+        for (int w = 0; w < this.threadsCount; w++) {
+            for (int l = 0; l < network.getLayersCount(); l++) {
+                buffers[w][l] = new double[tileRows * network.getLayerSize(l)];
+            }
+        }
+    }
+
+    /**
+     * Calculates network outputs for the specified input rows
+     *
+     * @param inputs  input matrix, rows x inputs count, row-major
+     * @param rows    number of rows
+     * @param outputs output matrix to fill, rows x outputs count, row-major
+     */
+    public void calculate(final double[] inputs, final int rows, final double[] outputs) {
+        if ((inputs.length < rows * network.getInputsCount()) || (outputs.length < rows * network.getOutputsCount())) {
+            throw new VectorSizeMismatchException("Input or output matrix is smaller than rows count!");
+        }
+
+        final int tilesCount = (rows + tileRows - 1) / tileRows;
+        if ((executor == null) || (tilesCount == 1)) {
+            calculateTiles(0, 1, tilesCount, inputs, rows, outputs);
+            return;
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>(threadsCount);
+        for (int w = 0; w < Math.min(threadsCount, tilesCount); w++) {
+            final int worker = w;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    calculateTiles(worker, threadsCount, tilesCount, inputs, rows, outputs);
+                    return null;
+                }
+            });
+        }
+
+        try {
+            for (Future<Void> result : executor.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new NeuroException("Batch inference was interrupted!", ex);
+        } catch (ExecutionException ex) {
+            throw new NeuroException("Batch inference worker failed!", ex.getCause());
+        }
+    }
+
+    /**
+     * Calculates network outputs for all rows of the specified data set
+     *
+     * @param dataSet data set with network inputs
+     * @return output matrix, data set size x outputs count, row-major
+     */
+    public double[] calculate(DataSet dataSet) {
+        int inputsCount = network.getInputsCount();
+        int outputsCount = network.getOutputsCount();
+        if (dataSet.getInputSize() != inputsCount) {
+            throw new VectorSizeMismatchException("Data set input size does not match network input dimension!");
+        }
+
+        // rows are staged in blocks which give every worker a few tiles
+        int blockRows = tileRows * threadsCount * 4;
+        double[] block = new double[blockRows * inputsCount];
+        double[] outputs = new double[dataSet.size() * outputsCount];
+        int done = 0;
+        int staged = 0;
+
+        Iterator<DataSetRow> iterator = dataSet.iterator();
+        while (iterator.hasNext()) {
+            System.arraycopy(iterator.next().getInput(), 0, block, staged * inputsCount, inputsCount);
+            staged++;
+            if ((staged == blockRows) || !iterator.hasNext()) {
+                double[] blockOutputs = new double[staged * outputsCount];
+                calculate(block, staged, blockOutputs);
+                System.arraycopy(blockOutputs, 0, outputs, done * outputsCount, blockOutputs.length);
+                done += staged;
+                staged = 0;
+            }
+        }
+        return outputs;
+    }
+
+    /**
+     * Calculates tiles worker, worker + step, worker + 2 * step, ... with the buffers of the worker
+     */
+    private void calculateTiles(int worker, int step, int tilesCount, double[] inputs, int rows, double[] outputs) {
+        double[][] activations = buffers[worker];
+        int layersCount = network.getLayersCount();
+        int inputsCount = network.getInputsCount();
+        int outputsCount = network.getOutputsCount();
+        double[] weights = network.getWeights();
+
+        for (int tile = worker; tile < tilesCount; tile += step) {
+            int firstRow = tile * tileRows;
+            int tileSize = Math.min(tileRows, rows - firstRow);
+            System.arraycopy(inputs, firstRow * inputsCount, activations[0], 0, tileSize * inputsCount);
+
+            for (int l = 1; l < layersCount; l++) {
+                int size = network.getLayerSize(l);
+                double[] layerOutput = activations[l];
+                DenseKernels.forward(activations[l - 1], tileSize, network.getLayerSize(l - 1),
+                        weights, network.getWeightIndex(l), network.getRowLength(l), network.isBiased(l),
+                        layerOutput, size);
+
+                TransferFunction transferFunction = network.getTransferFunction(l);
+                for (int i = 0; i < tileSize * size; i++) {
+                    layerOutput[i] = transferFunction.getOutput(layerOutput[i]);
+                }
+            }
+
+            System.arraycopy(activations[layersCount - 1], 0, outputs, firstRow * outputsCount, tileSize * outputsCount);
+        }
+    }
+
+    public FlatNetwork getNetwork() {
+        return network;
+    }
+
+    public int getTileRows() {
+        return tileRows;
+    }
+
+    public int getThreadsCount() {
+        return threadsCount;
+    }
+}
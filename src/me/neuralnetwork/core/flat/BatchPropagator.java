@@ -0,0 +1,285 @@
+package me.neuralnetwork.core.flat;
+
+import me.neuralnetwork.core.exception.VectorSizeMismatchException;
+import me.neuralnetwork.core.learning.error.ErrorFunction;
+import me.neuralnetwork.core.transfer.TransferFunction;
+
+/**
+ * Propagates blocks of patterns forward and backward through a FlatNetwork, as
+ * matrix-matrix products (block rows x layer width), and accumulates weight gradients.
+ *
+ * Patterns are staged with addPattern() and propagated whenever the block is full,
+ * or on flush(). Gradient is accumulated over all propagated patterns until clear()
+ * is called, so it can be collected over a mini-batch, a shard or a whole epoch.
+ *
+ * Accumulated gradient follows the BackPropagation convention for weight changes:
+ * it is the sum of delta * input, where delta = f'(net) * (desiredOutput - output)
+ * for output neurons, so it points in the direction of decreasing error
+ * (it is the negative gradient of the error function).
+ *
+ * Weights are only read, so several propagators can work with the same network at
+ * the same time, as long as nobody updates the weights meanwhile.
+ */
+public class BatchPropagator {
+    private final FlatNetwork network;
+
+    /**
+     * Maximum number of patterns in a block
+     */
+    private final int capacity;
+
+    /**
+     * Net input matrices for each layer, capacity x layer size
+     */
+    private final double[][] netInputs;
+
+    /**
+     * Output matrices for each layer, capacity x layer size. Layer 0 holds inputs.
+     */
+    private final double[][] outputs;
+
+    /**
+     * Delta matrices for each layer, capacity x layer size
+     */
+    private final double[][] deltas;
+
+    /**
+     * Desired outputs matrix, capacity x outputs count
+     */
+    private final double[] desiredOutputs;
+
+    /**
+     * Output error buffer for single pattern, passed to error function
+     */
+    private final double[] patternError;
+
+    /**
+     * Accumulated gradient, with the same layout as network weights
+     */
+    private final double[] gradient;
+
+    /**
+     * Error function which receives output error of each propagated pattern, may be null
+     */
+    private ErrorFunction errorFunction;
+
+    /**
+     * Use exact derivatives of transfer functions, so the gradient is the true error gradient
+     */
+    private boolean exactDerivatives = false;
+
+    /**
+     * Number of patterns staged in current block
+     */
+    private int rows = 0;
+
+    /**
+     * Number of patterns accumulated in gradient
+     */
+    private int patternsCount = 0;
+
+    /**
+     * Sum of squared output errors (multiplied by 0.5) accumulated with gradient
+     */
+    private double squaredErrorSum = 0d;
+
+    public BatchPropagator(FlatNetwork network, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Block capacity must be greater than zero!");
+        }
+
+        this.network = network;
+        this.capacity = capacity;
+
+        int layersCount = network.getLayersCount();
+        this.netInputs = new double[layersCount][];
+        this.outputs = new double[layersCount][];
+        this.deltas = new double[layersCount][];
+        for (int l = 0; l < layersCount; l++) {
+            int size = capacity * network.getLayerSize(l);
+            outputs[l] = new double[size];
+            if (l > 0) {
+                netInputs[l] = new double[size];
+                deltas[l] = new double[size];
+            }
+        }
+
+        this.desiredOutputs = new double[capacity * network.getOutputsCount()];
+        this.patternError = new double[network.getOutputsCount()];
+        this.gradient = new double[network.getWeightsCount()];
+    }
+
+    /**
+     * Adds pattern to the current block, and propagates the block if it is full
+     *
+     * @param input         pattern input
+     * @param desiredOutput pattern desired output
+     */
+    public void addPattern(double[] input, double[] desiredOutput) {
+        int inputsCount = network.getInputsCount();
+        int outputsCount = network.getOutputsCount();
+        if (input.length != inputsCount) {
+            throw new VectorSizeMismatchException("Input vector size does not match network input dimension!");
+        }
+        if (desiredOutput.length != outputsCount) {
+            throw new VectorSizeMismatchException("Desired output vector size does not match network output dimension!");
+        }
+
+        addPattern(input, 0, desiredOutput, 0);
+    }
+
+    /**
+     * Adds pattern stored in the specified arrays at specified positions to the
+     * current block, and propagates the block if it is full
+     *
+     * @param inputs         array holding pattern input
+     * @param inputIndex     index of the first input value
+     * @param desiredOutputs array holding pattern desired output
+     * @param outputIndex    index of the first desired output value
+     */
+    public void addPattern(double[] inputs, int inputIndex, double[] desiredOutputs, int outputIndex) {
+        int inputsCount = network.getInputsCount();
+        int outputsCount = network.getOutputsCount();
+
+        System.arraycopy(inputs, inputIndex, outputs[0], rows * inputsCount, inputsCount);
+        System.arraycopy(desiredOutputs, outputIndex, this.desiredOutputs, rows * outputsCount, outputsCount);
+        rows++;
+
+        if (rows == capacity) {
+            flush();
+        }
+    }
+
+    /**
+     * Propagates patterns staged in current block
+     */
+    public void flush() {
+        if (rows > 0) {
+            propagate(rows);
+            patternsCount += rows;
+            rows = 0;
+        }
+    }
+
+    private void propagate(int rows) {
+        double[] weights = network.getWeights();
+        int last = network.getLayersCount() - 1;
+
+        // forward pass
+        for (int l = 1; l <= last; l++) {
+            int size = network.getLayerSize(l);
+            DenseKernels.forward(outputs[l - 1], rows, network.getLayerSize(l - 1),
+                    weights, network.getWeightIndex(l), network.getRowLength(l), network.isBiased(l),
+                    netInputs[l], size);
+
+            TransferFunction transferFunction = network.getTransferFunction(l);
+            double[] net = netInputs[l];
+            double[] out = outputs[l];
+            for (int k = 0; k < rows * size; k++) {
+                out[k] = transferFunction.getOutput(net[k]);
+            }
+        }
+
+        // output error and output layer deltas
+        int outputsCount = network.getOutputsCount();
+        TransferFunction outputFunction = network.getTransferFunction(last);
+        for (int r = 0; r < rows; r++) {
+            for (int j = 0; j < outputsCount; j++) {
+                int k = r * outputsCount + j;
+                double error = desiredOutputs[k] - outputs[last][k];
+                patternError[j] = error;
+                squaredErrorSum += 0.5 * error * error;
+                deltas[last][k] = derivative(outputFunction, netInputs[last][k], outputs[last][k]) * error;
+            }
+            if (errorFunction != null) {
+                errorFunction.addOutputError(patternError);
+            }
+        }
+
+        // backward pass
+        for (int l = last; l > 0; l--) {
+            int size = network.getLayerSize(l);
+            int inputsCount = network.getLayerSize(l - 1);
+            DenseKernels.accumulateGradient(deltas[l], rows, size, outputs[l - 1], inputsCount,
+                    gradient, network.getWeightIndex(l), network.getRowLength(l), network.isBiased(l));
+
+            if (l > 1) {
+                double[] previousDelta = deltas[l - 1];
+                DenseKernels.backward(deltas[l], rows, size,
+                        weights, network.getWeightIndex(l), network.getRowLength(l),
+                        previousDelta, inputsCount);
+
+                TransferFunction transferFunction = network.getTransferFunction(l - 1);
+                double[] net = netInputs[l - 1];
+                double[] out = outputs[l - 1];
+                for (int k = 0; k < rows * inputsCount; k++) {
+                    previousDelta[k] *= derivative(transferFunction, net[k], out[k]);
+                }
+            }
+        }
+    }
+
+    private double derivative(TransferFunction transferFunction, double net, double output) {
+        return exactDerivatives ? transferFunction.getExactDerivative(net, output) : transferFunction.getDerivative(net, output);
+    }
+
+    /**
+     * Resets accumulated gradient, error and patterns count
+     */
+    public void clear() {
+        for (int i = 0; i < gradient.length; i++) {
+            gradient[i] = 0d;
+        }
+        patternsCount = 0;
+        squaredErrorSum = 0d;
+    }
+
+    /**
+     * Returns accumulated gradient (sum of delta * input over propagated patterns)
+     *
+     * @return gradient array, with the same layout as network weights
+     */
+    public double[] getGradient() {
+        return gradient;
+    }
+
+    /**
+     * Returns number of patterns accumulated in gradient since last clear
+     *
+     * @return number of propagated patterns
+     */
+    public int getPatternsCount() {
+        return patternsCount;
+    }
+
+    /**
+     * Returns sum of squared output errors, multiplied by 0.5, since last clear
+     *
+     * @return sum of squared output errors
+     */
+    public double getSquaredErrorSum() {
+        return squaredErrorSum;
+    }
+
+    public void setErrorFunction(ErrorFunction errorFunction) {
+        this.errorFunction = errorFunction;
+    }
+
+    public boolean isExactDerivatives() {
+        return exactDerivatives;
+    }
+
+    /**
+     * Sets whether exact derivatives of transfer functions are used (see TransferFunction.getExactDerivative()).
+     * By default derivatives are the same as in BackPropagation.
+     *
+     * @param exactDerivatives true to calculate the true error gradient
+     */
+    public void setExactDerivatives(boolean exactDerivatives) {
+        this.exactDerivatives = exactDerivatives;
+    }
+
+    public FlatNetwork getNetwork() {
+        return network;
+    }
+}
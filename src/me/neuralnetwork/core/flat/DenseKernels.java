@@ -0,0 +1,310 @@
+package me.neuralnetwork.core.flat;
+
+/**
+ * Matrix kernels for dense (fully connected) layers of a FlatNetwork.
+ *
+ * Matrices are row-major double arrays. Batch matrices have one row per pattern.
+ * Layer weights are a block of the flat weights array with one row per neuron,
+ * rowLength long, with optional bias weight as the last element of a row.
+ *
+ * Two implementations are available, chosen once at startup with the
+ * "me.neuralnetwork.kernels" system property:
+ *
+ *      unrolled    (default) forward pass multiplies four weight rows with each input
+ *                  value, for two batch rows at a time, and dot products use four
+ *                  independent accumulators, so several multiply-adds are in flight
+ *                  at once instead of waiting on a single sum; update loops are plain
+ *                  loops the JIT can vectorize
+ *      scalar      one multiply-add at a time, summed strictly in input order
+ *
+ * The kernels sum in different order, so their results may differ in the last bits.
+ */
+public final class DenseKernels {
+    /**
+     * System property which selects the kernels implementation, "unrolled" or "scalar"
+     */
+    public static final String KERNELS_PROPERTY = "me.neuralnetwork.kernels";
+
+    /**
+     * Number of neuron weight rows processed together in forward pass, so these
+     * rows stay in cache while all batch rows are multiplied with them
+     */
+    private static final int NEURONS_TILE = 16;
+
+    private static final boolean UNROLLED = !"scalar".equalsIgnoreCase(System.getProperty(KERNELS_PROPERTY));
+
+    private DenseKernels() {
+    }
+
+    /**
+     * Returns name of the kernels implementation chosen at startup
+     *
+     * @return "unrolled" or "scalar"
+     */
+    public static String getImplementation() {
+        return UNROLLED ? "unrolled" : "scalar";
+    }
+
+    /**
+     * Calculates dot product of two vectors
+     *
+     * @param a       first array
+     * @param aOffset index of the first element of the first vector
+     * @param b       second array
+     * @param bOffset index of the first element of the second vector
+     * @param length  vectors length
+     * @return dot product
+     */
+    public static double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        if (!UNROLLED) {
+            double sum = 0d;
+            for (int i = 0; i < length; i++) {
+                sum += a[aOffset + i] * b[bOffset + i];
+            }
+            return sum;
+        }
+
+        double sum0 = 0d;
+        double sum1 = 0d;
+        double sum2 = 0d;
+        double sum3 = 0d;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            sum0 += a[aOffset + i] * b[bOffset + i];
+            sum1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            sum2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            sum3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            sum0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (sum0 + sum1) + (sum2 + sum3);
+    }
+
+    /**
+     * Adds vector multiplied by a scalar to another vector: y += a * x
+     *
+     * @param a       scalar
+     * @param x       array of the added vector
+     * @param xOffset index of the first element of x
+     * @param y       array of the vector to change
+     * @param yOffset index of the first element of y
+     * @param length  vectors length
+     */
+    public static void axpy(double a, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            y[yOffset + i] += a * x[xOffset + i];
+        }
+    }
+
+    /**
+     * Calculates net inputs for a batch: net = input * weights^T (+ bias)
+     *
+     * @param input        batch input matrix, rows x inputsCount
+     * @param rows         number of batch rows
+     * @param inputsCount  number of layer inputs
+     * @param weights      flat weights array
+     * @param weightIndex  index of the layer block in weights array
+     * @param rowLength    length of the weights row
+     * @param biased       true if rows end with bias weight
+     * @param net          net input matrix to fill, rows x neuronsCount
+     * @param neuronsCount number of layer neurons
+     */
+    public static void forward(double[] input, int rows, int inputsCount,
+                               double[] weights, int weightIndex, int rowLength, boolean biased,
+                               double[] net, int neuronsCount) {
+        for (int jStart = 0; jStart < neuronsCount; jStart += NEURONS_TILE) {
+            int jEnd = Math.min(jStart + NEURONS_TILE, neuronsCount);
+            int r = 0;
+            if (UNROLLED) {
+                for (; r + 1 < rows; r += 2) {
+                    int j = jStart;
+                    for (; j + 3 < jEnd; j += 4) {
+                        forward2x4(input, r * inputsCount, inputsCount, weights, weightIndex + j * rowLength,
+                                rowLength, biased, net, r * neuronsCount + j, neuronsCount);
+                    }
+                    for (; j < jEnd; j++) {
+                        int w = weightIndex + j * rowLength;
+                        double bias = biased ? weights[w + inputsCount] : 0d;
+                        net[r * neuronsCount + j] = dot(weights, w, input, r * inputsCount, inputsCount) + bias;
+                        net[(r + 1) * neuronsCount + j] = dot(weights, w, input, (r + 1) * inputsCount, inputsCount) + bias;
+                    }
+                }
+            }
+            for (; r < rows; r++) {
+                int in = r * inputsCount;
+                int j = jStart;
+                if (UNROLLED) {
+                    for (; j + 3 < jEnd; j += 4) {
+                        forward4(input, in, inputsCount, weights, weightIndex + j * rowLength, rowLength, biased,
+                                net, r * neuronsCount + j);
+                    }
+                }
+                for (; j < jEnd; j++) {
+                    int w = weightIndex + j * rowLength;
+                    double sum = dot(weights, w, input, in, inputsCount);
+                    if (biased) {
+                        sum += weights[w + inputsCount];
+                    }
+                    net[r * neuronsCount + j] = sum;
+                }
+            }
+        }
+    }
+
+    /**
+     * Calculates net inputs of four consecutive neurons for one input row, reading
+     * each input value once for all four weight rows
+     */
+    private static void forward4(double[] input, int in, int inputsCount,
+                                 double[] weights, int w0, int rowLength, boolean biased,
+                                 double[] net, int n) {
+        int w1 = w0 + rowLength;
+        int w2 = w1 + rowLength;
+        int w3 = w2 + rowLength;
+        double sum0 = 0d;
+        double sum1 = 0d;
+        double sum2 = 0d;
+        double sum3 = 0d;
+        for (int i = 0; i < inputsCount; i++) {
+            double x = input[in + i];
+            sum0 += weights[w0 + i] * x;
+            sum1 += weights[w1 + i] * x;
+            sum2 += weights[w2 + i] * x;
+            sum3 += weights[w3 + i] * x;
+        }
+        if (biased) {
+            sum0 += weights[w0 + inputsCount];
+            sum1 += weights[w1 + inputsCount];
+            sum2 += weights[w2 + inputsCount];
+            sum3 += weights[w3 + inputsCount];
+        }
+        net[n] = sum0;
+        net[n + 1] = sum1;
+        net[n + 2] = sum2;
+        net[n + 3] = sum3;
+    }
+
+    /**
+     * Calculates net inputs of four consecutive neurons for two consecutive input rows,
+     * reading each weight once for both rows and each input value once for all four
+     * neurons: eight multiply-adds for six loads
+     */
+    private static void forward2x4(double[] input, int in, int inputsCount,
+                                   double[] weights, int w0, int rowLength, boolean biased,
+                                   double[] net, int n, int neuronsCount) {
+        int in1 = in + inputsCount;
+        int w1 = w0 + rowLength;
+        int w2 = w1 + rowLength;
+        int w3 = w2 + rowLength;
+        double sum00 = 0d;
+        double sum01 = 0d;
+        double sum02 = 0d;
+        double sum03 = 0d;
+        double sum10 = 0d;
+        double sum11 = 0d;
+        double sum12 = 0d;
+        double sum13 = 0d;
+        for (int i = 0; i < inputsCount; i++) {
+            double x0 = input[in + i];
+            double x1 = input[in1 + i];
+            double v0 = weights[w0 + i];
+            double v1 = weights[w1 + i];
+            double v2 = weights[w2 + i];
+            double v3 = weights[w3 + i];
+            sum00 += v0 * x0;
+            sum01 += v1 * x0;
+            sum02 += v2 * x0;
+            sum03 += v3 * x0;
+            sum10 += v0 * x1;
+            sum11 += v1 * x1;
+            sum12 += v2 * x1;
+            sum13 += v3 * x1;
+        }
+        if (biased) {
+            double b0 = weights[w0 + inputsCount];
+            double b1 = weights[w1 + inputsCount];
+            double b2 = weights[w2 + inputsCount];
+            double b3 = weights[w3 + inputsCount];
+            sum00 += b0;
+            sum01 += b1;
+            sum02 += b2;
+            sum03 += b3;
+            sum10 += b0;
+            sum11 += b1;
+            sum12 += b2;
+            sum13 += b3;
+        }
+        int n1 = n + neuronsCount;
+        net[n] = sum00;
+        net[n + 1] = sum01;
+        net[n + 2] = sum02;
+        net[n + 3] = sum03;
+        net[n1] = sum10;
+        net[n1 + 1] = sum11;
+        net[n1 + 2] = sum12;
+        net[n1 + 3] = sum13;
+    }
+
+    /**
+     * Accumulates weight gradients for a batch: gradient += delta^T * input
+     *
+     * @param delta        batch delta matrix, rows x neuronsCount
+     * @param rows         number of batch rows
+     * @param neuronsCount number of layer neurons
+     * @param input        batch input matrix, rows x inputsCount
+     * @param inputsCount  number of layer inputs
+     * @param gradient     gradient array, with the same layout as weights
+     * @param weightIndex  index of the layer block in gradient array
+     * @param rowLength    length of the weights row
+     * @param biased       true if rows end with bias weight
+     */
+    public static void accumulateGradient(double[] delta, int rows, int neuronsCount,
+                                          double[] input, int inputsCount,
+                                          double[] gradient, int weightIndex, int rowLength, boolean biased) {
+        for (int j = 0; j < neuronsCount; j++) {
+            int g = weightIndex + j * rowLength;
+            for (int r = 0; r < rows; r++) {
+                double d = delta[r * neuronsCount + j];
+                if (d == 0d) {
+                    continue;
+                }
+                axpy(d, input, r * inputsCount, gradient, g, inputsCount);
+                if (biased) {
+                    gradient[g + inputsCount] += d;
+                }
+            }
+        }
+    }
+
+    /**
+     * Propagates deltas back through layer weights: error = delta * weights
+     * (bias weights excluded)
+     *
+     * @param delta        batch delta matrix, rows x neuronsCount
+     * @param rows         number of batch rows
+     * @param neuronsCount number of layer neurons
+     * @param weights      flat weights array
+     * @param weightIndex  index of the layer block in weights array
+     * @param rowLength    length of the weights row
+     * @param error        matrix to fill with errors of layer inputs, rows x inputsCount
+     * @param inputsCount  number of layer inputs
+     */
+    public static void backward(double[] delta, int rows, int neuronsCount,
+                                double[] weights, int weightIndex, int rowLength,
+                                double[] error, int inputsCount) {
+        for (int r = 0; r < rows; r++) {
+            int e = r * inputsCount;
+            for (int i = 0; i < inputsCount; i++) {
+                error[e + i] = 0d;
+            }
+            for (int j = 0; j < neuronsCount; j++) {
+                double d = delta[r * neuronsCount + j];
+                if (d == 0d) {
+                    continue;
+                }
+                axpy(d, weights, weightIndex + j * rowLength, error, e, inputsCount);
+            }
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package me.neuralnetwork.core.flat;
+
+import me.neuralnetwork.core.Connection;
+import me.neuralnetwork.core.Layer;
+import me.neuralnetwork.core.NeuralNetwork;
+import me.neuralnetwork.core.Neuron;
+import me.neuralnetwork.core.Weight;
+import me.neuralnetwork.core.exception.NeuroException;
+import me.neuralnetwork.core.exception.VectorSizeMismatchException;
+import me.neuralnetwork.core.input.WeightedSum;
+import me.neuralnetwork.core.neuron.BiasNeuron;
+import me.neuralnetwork.core.transfer.TransferFunction;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled (flat) form of a layered feed forward network, such as MultiLayerPerceptron.
+ *
+ * All weights are kept in one contiguous double array. Each layer owns a row-major
+ * block in that array with one row per neuron: the weights of the connections from the
+ * previous layer neurons, followed by the bias weight when the previous layer has a
+ * bias neuron. For networks created by MultiLayerPerceptron this is the same order as
+ * the one used by NeuralNetwork.getWeights().
+ *
+ * The forward pass is a plain matrix-vector loop over that array, so it does not touch
+ * Neuron, Connection or Weight objects at all. Topology is frozen at compile time;
+ * use copyWeightsTo() to write the weights back to the original network.
+ *
+ * Activations are not stored in the network itself but in InferenceSession objects,
+ * so one network can be shared by many threads, each calculating with its own session
+ * (see newSession()). The compute() and calculate() methods of this class use a default
+ * session and must not be called from several threads at once.
+ */
+public class FlatNetwork {
+    /**
+     * Number of neurons in each layer, bias neurons excluded
+     */
+    private final int[] layerSizes;
+
+    /**
+     * True for layer l if its rows carry bias weight (previous layer has bias neuron)
+     */
+    private final boolean[] biased;
+
+    /**
+     * Index of the first weight of each layer block in weights array
+     */
+    private final int[] weightIndex;
+
+    /**
+     * All network weights
+     */
+    private final double[] weights;
+
+    /**
+     * Transfer function for each layer (null for input layer)
+     */
+    private final TransferFunction[] transferFunctions;
+
+    /**
+     * Session used by compute() and calculate() methods of this network
+     */
+    private final InferenceSession defaultSession;
+
+    public FlatNetwork(int[] layerSizes, boolean[] biased, TransferFunction[] transferFunctions) {
+        if (layerSizes.length < 2) {
+            throw new IllegalArgumentException("Flat network needs at least input and output layer!");
+        }
+
+        if ((biased.length != layerSizes.length) || (transferFunctions.length != layerSizes.length)) {
+            throw new IllegalArgumentException("Layer sizes, bias flags and transfer functions must have the same length!");
+        }
+
+        this.layerSizes = layerSizes.clone();
+        this.biased = biased.clone();
+        this.transferFunctions = transferFunctions.clone();
+        this.weightIndex = new int[layerSizes.length];
+
+        int weightsCount = 0;
+        for (int l = 0; l < layerSizes.length; l++) {
+            weightIndex[l] = weightsCount;
+            if (l > 0) {
+                weightsCount += layerSizes[l] * getRowLength(l);
+            }
+        }
+        this.weights = new double[weightsCount];
+        this.defaultSession = new InferenceSession(this);
+    }
+
+    /**
+     * Compiles specified network into flat form. Network must be layered and each
+     * neuron may only have input connections from the neurons in previous layer.
+     * Neurons of each layer must use WeightedSum input function and transfer functions
+     * of the same class with the same parameters. Each compiled layer gets its own copy of the transfer function (see ModelFile),
+     * so it can calculate while the original network is trained.
+     *
+     * @param neuralNetwork network to compile
+     * @return compiled network with current weights of the specified network
+     */
+    public static FlatNetwork compile(NeuralNetwork<?> neuralNetwork) {
+        Layer[] layers = neuralNetwork.getLayers();
+        if (layers.length < 2) {
+            throw new NeuroException("Network must have at least input and output layer to be compiled!");
+        }
+
+        int[] sizes = new int[layers.length];
+        boolean[] biased = new boolean[layers.length];
+        TransferFunction[] transferFunctions = new TransferFunction[layers.length];
+
+        for (int l = 0; l < layers.length; l++) {
+            sizes[l] = regularNeurons(layers[l]).size();
+            if (l > 0) {
+                biased[l] = biasNeuron(layers[l - 1]) != null;
+                // own copy, so calculations with the compiled network do not overwrite the output
+                // cached by the function the neurons of the original network use
+                transferFunctions[l] = ModelFile.copyOf(layerTransferFunction(layers[l], l));
+            }
+        }
+
+        FlatNetwork flatNetwork = new FlatNetwork(sizes, biased, transferFunctions);
+        Weight[] networkWeights = flatNetwork.mapWeights(neuralNetwork);
+        for (int i = 0; i < networkWeights.length; i++) {
+            flatNetwork.weights[i] = networkWeights[i].getValue();
+        }
+
+        return flatNetwork;
+    }
+
+    /**
+     * Copies weights of this flat network to the connections of specified network.
+     * The network must have the same topology this network was compiled from.
+     *
+     * @param neuralNetwork network to set weights to
+     */
+    public void copyWeightsTo(NeuralNetwork<?> neuralNetwork) {
+        Weight[] networkWeights = mapWeights(neuralNetwork);
+        for (int i = 0; i < networkWeights.length; i++) {
+            networkWeights[i].setValue(weights[i]);
+        }
+    }
+
+    /**
+     * Returns connection weights of specified network in the order of flat weights array
+     */
+    private Weight[] mapWeights(NeuralNetwork<?> neuralNetwork) {
+        Layer[] layers = neuralNetwork.getLayers();
+        if (layers.length != layerSizes.length) {
+            throw new NeuroException("Network layers count does not match compiled network!");
+        }
+
+        Weight[] networkWeights = new Weight[weights.length];
+        for (int l = 1; l < layers.length; l++) {
+            List<Neuron> previous = regularNeurons(layers[l - 1]);
+            Neuron previousBias = biasNeuron(layers[l - 1]);
+            List<Neuron> neurons = regularNeurons(layers[l]);
+            if ((previous.size() != layerSizes[l - 1]) || (neurons.size() != layerSizes[l])) {
+                throw new NeuroException("Layer " + l + " size does not match compiled network!");
+            }
+
+            Map<Neuron, Integer> previousIndex = new IdentityHashMap<>();
+            for (int i = 0; i < previous.size(); i++) {
+                previousIndex.put(previous.get(i), i);
+            }
+
+            int rowLength = getRowLength(l);
+            for (int j = 0; j < neurons.size(); j++) {
+                Connection[] connections = neurons.get(j).getInputConnections();
+                if (connections.length != rowLength) {
+                    throw new NeuroException("Neuron " + j + " in layer " + l + " is not fully connected to previous layer!");
+                }
+
+                int row = weightIndex[l] + j * rowLength;
+                for (Connection connection : connections) {
+                    Neuron from = connection.getFromNeuron();
+                    Integer idx = previousIndex.get(from);
+                    if (idx != null) {
+                        networkWeights[row + idx] = connection.getWeight();
+                    } else if ((from == previousBias) && biased[l]) {
+                        networkWeights[row + layerSizes[l - 1]] = connection.getWeight();
+                    } else {
+                        throw new NeuroException("Neuron " + j + " in layer " + l + " has connection from outside of previous layer!");
+                    }
+                }
+            }
+        }
+
+        return networkWeights;
+    }
+
+    /**
+     * Returns transfer function of the layer, after checking that all its neurons
+     * calculate the same weighted sum and transfer function
+     */
+    private static TransferFunction layerTransferFunction(Layer layer, int layerIndex) {
+        List<Neuron> neurons = regularNeurons(layer);
+        if (neurons.isEmpty()) {
+            throw new NeuroException("Layer " + layerIndex + " has no neurons to compile!");
+        }
+
+        TransferFunction transferFunction = neurons.get(0).getTransferFunction();
+        for (int j = 0; j < neurons.size(); j++) {
+            Neuron neuron = neurons.get(j);
+            if ((neuron.getInputFunction() == null) || (neuron.getInputFunction().getClass() != WeightedSum.class)) {
+                throw new NeuroException("Neuron " + j + " in layer " + layerIndex + " does not use WeightedSum input function!");
+            }
+            if ((neuron.getTransferFunction() == null) || (transferFunction == null)
+                    || !ModelFile.isSameFunction(transferFunction, neuron.getTransferFunction())) {
+                throw new NeuroException("Neuron " + j + " in layer " + layerIndex + " has different transfer function than the rest of the layer!");
+            }
+        }
+        return transferFunction;
+    }
+
+    private static List<Neuron> regularNeurons(Layer layer) {
+        List<Neuron> neurons = new ArrayList<>();
+        for (Neuron neuron : layer.getNeurons()) {
+            if (!(neuron instanceof BiasNeuron)) {
+                neurons.add(neuron);
+            }
+        }
+        return neurons;
+    }
+
+    private static Neuron biasNeuron(Layer layer) {
+        for (Neuron neuron : layer.getNeurons()) {
+            if (neuron instanceof BiasNeuron) {
+                return neuron;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates new session with its own activation buffers. Each thread which
+     * calculates with this network concurrently should use its own session.
+     *
+     * @return new inference session for this network
+     */
+    public InferenceSession newSession() {
+        return new InferenceSession(this);
+    }
+
+    /**
+     * Calculates network output for the specified input, using the default session
+     *
+     * @param input network input vector
+     * @return network output vector (internal buffer, overwritten by next call)
+     */
+    public double[] compute(double... input) {
+        return defaultSession.calculate(input);
+    }
+
+    /**
+     * Calculates network output for the specified input and copies it to the
+     * specified output buffer, using the default session. Does not allocate any memory.
+     *
+     * @param input  network input vector
+     * @param output buffer for network output, at least outputs count long
+     */
+    public void calculate(double[] input, double[] output) {
+        defaultSession.calculate(input, output);
+    }
+
+    /**
+     * Returns number of weights in a row of specified layer block
+     *
+     * @param layer layer index (greater than zero)
+     * @return inputs count, plus one if layer has bias weight
+     */
+    public int getRowLength(int layer) {
+        return layerSizes[layer - 1] + (biased[layer] ? 1 : 0);
+    }
+
+    /**
+     * Returns index of the first weight of specified layer block in weights array
+     *
+     * @param layer layer index (greater than zero)
+     * @return index of the layer block
+     */
+    public int getWeightIndex(int layer) {
+        return weightIndex[layer];
+    }
+
+    /**
+     * Returns backing weights array of this network. Changes made to the returned
+     * array are seen by the next calculation.
+     *
+     * @return weights array
+     */
+    public double[] getWeights() {
+        return weights;
+    }
+
+    /**
+     * Sets all weights from specified array
+     *
+     * @param weights array of weights, in flat order
+     */
+    public void setWeights(double[] weights) {
+        if (weights.length != this.weights.length) {
+            throw new VectorSizeMismatchException("Weights vector size does not match network weights count!");
+        }
+        System.arraycopy(weights, 0, this.weights, 0, weights.length);
+    }
+
+    public int getWeightsCount() {
+        return weights.length;
+    }
+
+    public int getLayersCount() {
+        return layerSizes.length;
+    }
+
+    /**
+     * Returns number of neurons in specified layer, bias neurons excluded
+     *
+     * @param layer layer index
+     * @return number of neurons in layer
+     */
+    public int getLayerSize(int layer) {
+        return layerSizes[layer];
+    }
+
+    public boolean isBiased(int layer) {
+        return biased[layer];
+    }
+
+    public TransferFunction getTransferFunction(int layer) {
+        return transferFunctions[layer];
+    }
+
+    public int getInputsCount() {
+        return layerSizes[0];
+    }
+
+    public int getOutputsCount() {
+        return layerSizes[layerSizes.length - 1];
+    }
+}
@@ -0,0 +1,275 @@
+package me.neuralnetwork.core.flat;
+
+import me.neuralnetwork.core.NeuralNetwork;
+import me.neuralnetwork.core.exception.VectorSizeMismatchException;
+import me.neuralnetwork.core.transfer.TransferFunction;
+
+/**
+ * Single precision form of a compiled network, for inference only.
+ *
+ * Weights and activations are floats, so the network takes half of the memory of
+ * FlatNetwork and twice as many weights fit in cache; weighted sums are accumulated
+ * in float as well. Transfer functions are still calculated in double, their results
+ * are rounded to float. Weights layout is the same as in FlatNetwork.
+ *
+ * Activations are kept in sessions: one network can be used by many threads, each
+ * calculating with its own session (see newSession()). The compute() and calculate()
+ * methods of this class use a default session and must not be called from several
+ * threads at once.
+ */
+public class FloatFlatNetwork {
+    private final int[] layerSizes;
+    private final boolean[] biased;
+    private final int[] weightIndex;
+    private final float[] weights;
+    private final TransferFunction[] transferFunctions;
+
+    private final Session defaultSession;
+
+    public FloatFlatNetwork(int[] layerSizes, boolean[] biased, TransferFunction[] transferFunctions) {
+        if (layerSizes.length < 2) {
+            throw new IllegalArgumentException("Flat network needs at least input and output layer!");
+        }
+
+        if ((biased.length != layerSizes.length) || (transferFunctions.length != layerSizes.length)) {
+            throw new IllegalArgumentException("Layer sizes, bias flags and transfer functions must have the same length!");
+        }
+
+        this.layerSizes = layerSizes.clone();
+        this.biased = biased.clone();
+        this.transferFunctions = transferFunctions.clone();
+        this.weightIndex = new int[layerSizes.length];
+
+        int weightsCount = 0;
+        for (int l = 1; l < layerSizes.length; l++) {
+            weightIndex[l] = weightsCount;
+            weightsCount += layerSizes[l] * getRowLength(l);
+        }
+        this.weights = new float[weightsCount];
+        this.defaultSession = new Session();
+    }
+
+    /**
+     * Creates single precision copy of the specified compiled network, with weights rounded to float
+     *
+     * @param flatNetwork compiled network
+     */
+    public FloatFlatNetwork(FlatNetwork flatNetwork) {
+        this(layerSizesOf(flatNetwork), biasedOf(flatNetwork), transferFunctionsOf(flatNetwork));
+        double[] flatWeights = flatNetwork.getWeights();
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (float) flatWeights[i];
+        }
+    }
+
+    /**
+     * Compiles specified network into single precision flat form, see FlatNetwork.compile()
+     *
+     * @param neuralNetwork network to compile
+     * @return compiled network with current weights of the specified network, rounded to float
+     */
+    public static FloatFlatNetwork compile(NeuralNetwork<?> neuralNetwork) {
+        return new FloatFlatNetwork(FlatNetwork.compile(neuralNetwork));
+    }
+
+    private static int[] layerSizesOf(FlatNetwork flatNetwork) {
+        int[] sizes = new int[flatNetwork.getLayersCount()];
+        for (int l = 0; l < sizes.length; l++) {
+            sizes[l] = flatNetwork.getLayerSize(l);
+        }
+        return sizes;
+    }
+
+    private static boolean[] biasedOf(FlatNetwork flatNetwork) {
+        boolean[] biased = new boolean[flatNetwork.getLayersCount()];
+        for (int l = 0; l < biased.length; l++) {
+            biased[l] = flatNetwork.isBiased(l);
+        }
+        return biased;
+    }
+
+    private static TransferFunction[] transferFunctionsOf(FlatNetwork flatNetwork) {
+        TransferFunction[] transferFunctions = new TransferFunction[flatNetwork.getLayersCount()];
+        for (int l = 0; l < transferFunctions.length; l++) {
+            transferFunctions[l] = flatNetwork.getTransferFunction(l);
+        }
+        return transferFunctions;
+    }
+
+    /**
+     * Creates double precision copy of this network
+     *
+     * @return compiled network with the same topology and weights
+     */
+    public FlatNetwork toFlatNetwork() {
+        FlatNetwork flatNetwork = new FlatNetwork(layerSizes, biased, transferFunctions);
+        double[] flatWeights = flatNetwork.getWeights();
+        for (int i = 0; i < weights.length; i++) {
+            flatWeights[i] = weights[i];
+        }
+        return flatNetwork;
+    }
+
+    /**
+     * Creates new session with its own activation buffers. Each thread which
+     * calculates with this network concurrently should use its own session.
+     *
+     * @return new session for this network
+     */
+    public Session newSession() {
+        return new Session();
+    }
+
+    /**
+     * Calculates network output for the specified input, using the default session
+     *
+     * @param input network input vector
+     * @return network output vector (internal buffer, overwritten by next call)
+     */
+    public float[] compute(float... input) {
+        return defaultSession.calculate(input);
+    }
+
+    /**
+     * Calculates network output for the specified input and copies it to the
+     * specified output buffer, using the default session. Does not allocate any memory.
+     *
+     * @param input  network input vector
+     * @param output buffer for network output, at least outputs count long
+     */
+    public void calculate(float[] input, float[] output) {
+        defaultSession.calculate(input, output);
+    }
+
+    public int getRowLength(int layer) {
+        return layerSizes[layer - 1] + (biased[layer] ? 1 : 0);
+    }
+
+    public int getWeightIndex(int layer) {
+        return weightIndex[layer];
+    }
+
+    /**
+     * Returns backing weights array of this network. Changes made to the returned
+     * array are seen by the next calculation.
+     *
+     * @return weights array
+     */
+    public float[] getWeights() {
+        return weights;
+    }
+
+    public int getWeightsCount() {
+        return weights.length;
+    }
+
+    public int getLayersCount() {
+        return layerSizes.length;
+    }
+
+    public int getLayerSize(int layer) {
+        return layerSizes[layer];
+    }
+
+    public boolean isBiased(int layer) {
+        return biased[layer];
+    }
+
+    public TransferFunction getTransferFunction(int layer) {
+        return transferFunctions[layer];
+    }
+
+    public int getInputsCount() {
+        return layerSizes[0];
+    }
+
+    public int getOutputsCount() {
+        return layerSizes[layerSizes.length - 1];
+    }
+
+    /**
+     * Activation buffers for calculation with a FloatFlatNetwork, the same as
+     * InferenceSession for FlatNetwork. Single session must not be used by several
+     * threads at once.
+     */
+    public class Session {
+        private final float[][] outputs;
+
+        private Session() {
+            outputs = new float[layerSizes.length][];
+            for (int l = 0; l < layerSizes.length; l++) {
+                outputs[l] = new float[layerSizes[l]];
+            }
+        }
+
+        /**
+         * Calculates network output for the specified input
+         *
+         * @param input network input vector
+         * @return network output vector (buffer of this session, overwritten by next call)
+         */
+        public float[] calculate(float... input) {
+            if (input.length != getInputsCount()) {
+                throw new VectorSizeMismatchException("Input vector size does not match network input dimension!");
+            }
+            return calculate(input, 0);
+        }
+
+        /**
+         * Calculates network output for the input which starts at the specified offset,
+         * for example a row of FloatDataSet.getData()
+         *
+         * @param data   array with the input vector
+         * @param offset index of the first input value
+         * @return network output vector (buffer of this session, overwritten by next call)
+         */
+        public float[] calculate(float[] data, int offset) {
+            System.arraycopy(data, offset, outputs[0], 0, layerSizes[0]);
+
+            for (int l = 1; l < outputs.length; l++) {
+                float[] layerInput = outputs[l - 1];
+                float[] layerOutput = outputs[l];
+                TransferFunction transferFunction = transferFunctions[l];
+                int inputsCount = layerInput.length;
+                int rowLength = getRowLength(l);
+                int row = weightIndex[l];
+
+                for (int j = 0; j < layerOutput.length; j++, row += rowLength) {
+                    float sum = 0f;
+                    for (int i = 0; i < inputsCount; i++) {
+                        sum += weights[row + i] * layerInput[i];
+                    }
+                    if (biased[l]) {
+                        sum += weights[row + inputsCount];
+                    }
+
+                    layerOutput[j] = (float) transferFunction.getOutput(sum);
+                }
+            }
+
+            return outputs[outputs.length - 1];
+        }
+
+        /**
+         * Calculates network output for the specified input and copies it to the
+         * specified output buffer. Does not allocate any memory.
+         *
+         * @param input  network input vector
+         * @param output buffer for network output, at least outputs count long
+         */
+        public void calculate(float[] input, float[] output) {
+            float[] result = calculate(input);
+            System.arraycopy(result, 0, output, 0, result.length);
+        }
+
+        /**
+         * Returns output buffer of specified layer, from the last calculation
+         *
+         * @param layer layer index
+         * @return outputs of layer neurons
+         */
+        public float[] getOutput(int layer) {
+            return outputs[layer];
+        }
+    }
+}
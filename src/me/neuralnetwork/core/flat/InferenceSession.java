@@ -0,0 +1,108 @@
+package me.neuralnetwork.core.flat;
+
+import me.neuralnetwork.core.exception.VectorSizeMismatchException;
+import me.neuralnetwork.core.transfer.TransferFunction;
+
+/**
+ * Holds activation buffers for calculation with a FlatNetwork.
+ *
+ * Network weights are only read by a session, so any number of sessions can
+ * calculate with the same network at the same time. Single session must not be
+ * used by several threads at once.
+ */
+public class InferenceSession {
+    /**
+     * Network this session calculates with
+     */
+    private final FlatNetwork network;
+
+    /**
+     * Net input buffers for each layer
+     */
+    private final double[][] netInputs;
+
+    /**
+     * Output buffers for each layer
+     */
+    private final double[][] outputs;
+
+    public InferenceSession(FlatNetwork network) {
+        this.network = network;
+        this.netInputs = new double[network.getLayersCount()][];
+        this.outputs = new double[network.getLayersCount()][];
+
+        for (int l = 0; l < network.getLayersCount(); l++) {
+            netInputs[l] = new double[network.getLayerSize(l)];
+            outputs[l] = new double[network.getLayerSize(l)];
+        }
+    }
+
+    /**
+     * Calculates network output for the specified input
+     *
+     * @param input network input vector
+     * @return network output vector (buffer of this session, overwritten by next call)
+     */
+    public double[] calculate(double... input) {
+        if (input.length != network.getInputsCount()) {
+            throw new VectorSizeMismatchException("Input vector size does not match network input dimension!");
+        }
+
+        System.arraycopy(input, 0, outputs[0], 0, input.length);
+
+        double[] weights = network.getWeights();
+        for (int l = 1; l < outputs.length; l++) {
+            double[] layerInput = outputs[l - 1];
+            double[] layerNet = netInputs[l];
+            double[] layerOutput = outputs[l];
+            TransferFunction transferFunction = network.getTransferFunction(l);
+            boolean biased = network.isBiased(l);
+            int inputsCount = layerInput.length;
+            int rowLength = network.getRowLength(l);
+
+            DenseKernels.forward(layerInput, 1, inputsCount, weights, network.getWeightIndex(l), rowLength, biased,
+                    layerNet, layerOutput.length);
+            for (int j = 0; j < layerOutput.length; j++) {
+                layerOutput[j] = transferFunction.getOutput(layerNet[j]);
+            }
+        }
+
+        return outputs[outputs.length - 1];
+    }
+
+    /**
+     * Calculates network output for the specified input and copies it to the
+     * specified output buffer. Does not allocate any memory.
+     *
+     * @param input  network input vector
+     * @param output buffer for network output, at least outputs count long
+     */
+    public void calculate(double[] input, double[] output) {
+        double[] result = calculate(input);
+        System.arraycopy(result, 0, output, 0, result.length);
+    }
+
+    /**
+     * Returns net input buffer of specified layer, from the last calculation
+     *
+     * @param layer layer index
+     * @return net inputs of layer neurons
+     */
+    public double[] getNetInput(int layer) {
+        return netInputs[layer];
+    }
+
+    /**
+     * Returns output buffer of specified layer, from the last calculation
+     *
+     * @param layer layer index
+     * @return outputs of layer neurons
+     */
+    public double[] getOutput(int layer) {
+        return outputs[layer];
+    }
+
+    public FlatNetwork getNetwork() {
+        return network;
+    }
+}
@@ -0,0 +1,94 @@
+package me.neuralnetwork.core.flat;
+
+import me.neuralnetwork.core.transfer.TransferFunction;
+
+/**
+ * Calculates rows of the network Jacobian - derivatives of each network output
+ * with respect to all weights - for one pattern at a time.
+ *
+ * calculate() propagates the pattern forward, and calculateRow() propagates one output
+ * back through the network, giving a Jacobian row in the layout of network weights.
+ * Buffers are allocated once, so rows of the whole training set can be calculated
+ * without allocations. Exact derivatives of transfer functions are used.
+ */
+public class JacobianCalculator {
+    private final FlatNetwork network;
+    private final InferenceSession session;
+
+    /**
+     * Delta buffers for each layer
+     */
+    private final double[][] deltas;
+
+    /**
+     * Jacobian row buffer, with the same layout as network weights
+     */
+    private final double[] row;
+
+    public JacobianCalculator(FlatNetwork network) {
+        this.network = network;
+        this.session = network.newSession();
+        this.deltas = new double[network.getLayersCount()][];
+        for (int l = 1; l < network.getLayersCount(); l++) {
+            deltas[l] = new double[network.getLayerSize(l)];
+        }
+        this.row = new double[network.getWeightsCount()];
+    }
+
+    /**
+     * Propagates pattern forward
+     *
+     * @param input pattern input
+     * @return network output, valid until the next calculation
+     */
+    public double[] calculate(double[] input) {
+        return session.calculate(input);
+    }
+
+    /**
+     * Calculates Jacobian row for the specified output and the last calculated pattern
+     *
+     * @param output output index
+     * @return derivatives of the output with respect to weights, valid until the next call
+     */
+    public double[] calculateRow(int output) {
+        for (int i = 0; i < row.length; i++) {
+            row[i] = 0d;
+        }
+
+        int last = network.getLayersCount() - 1;
+        double[] lastDelta = deltas[last];
+        for (int j = 0; j < lastDelta.length; j++) {
+            lastDelta[j] = 0d;
+        }
+        lastDelta[output] = network.getTransferFunction(last)
+                .getExactDerivative(session.getNetInput(last)[output], session.getOutput(last)[output]);
+
+        double[] weights = network.getWeights();
+        for (int l = last; l > 0; l--) {
+            int size = network.getLayerSize(l);
+            int inputsCount = network.getLayerSize(l - 1);
+            DenseKernels.accumulateGradient(deltas[l], 1, size, session.getOutput(l - 1), inputsCount,
+                    row, network.getWeightIndex(l), network.getRowLength(l), network.isBiased(l));
+
+            if (l > 1) {
+                double[] previousDelta = deltas[l - 1];
+                DenseKernels.backward(deltas[l], 1, size, weights, network.getWeightIndex(l), network.getRowLength(l),
+                        previousDelta, inputsCount);
+
+                TransferFunction transferFunction = network.getTransferFunction(l - 1);
+                double[] net = session.getNetInput(l - 1);
+                double[] out = session.getOutput(l - 1);
+                for (int k = 0; k < inputsCount; k++) {
+                    previousDelta[k] *= transferFunction.getExactDerivative(net[k], out[k]);
+                }
+            }
+        }
+
+        return row;
+    }
+
+    public FlatNetwork getNetwork() {
+        return network;
+    }
+}
@@ -0,0 +1,247 @@
+package me.neuralnetwork.core.flat;
+
+import me.neuralnetwork.core.exception.NeuroException;
+import me.neuralnetwork.core.exception.VectorSizeMismatchException;
+import me.neuralnetwork.core.transfer.TransferFunction;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only compiled network calculating directly over the weights of a memory-mapped
+ * model file (see ModelFile).
+ *
+ * Weights are not copied to the heap: they are read from the mapped file, so all
+ * processes which open the same model file share one copy of its weights in the
+ * operating system page cache, and opening only parses the header.
+ *
+ * Weights layout is the same as in FlatNetwork. Each neuron sums its weighted inputs
+ * strictly in input order, as the scalar DenseKernels do; with the default unrolled
+ * kernels FlatNetwork sums in a different order, so outputs may differ in the last
+ * bits. Use toFlatNetwork() to get a heap copy which can be changed or trained. Activations are kept in sessions,
+ * as in FlatNetwork: one network can be used by many threads, each calculating with
+ * its own session. The compute() and calculate() methods of this class use a default
+ * session and must not be called from several threads at once.
+ */
+public class MappedFlatNetwork {
+    private final int[] layerSizes;
+    private final boolean[] biased;
+    private final int[] weightIndex;
+    private final TransferFunction[] transferFunctions;
+
+    /**
+     * Read-only view of the mapped weights
+     */
+    private final DoubleBuffer weights;
+
+    private final Session defaultSession;
+
+    private MappedFlatNetwork(ModelFile.Header header, DoubleBuffer weights) {
+        this.layerSizes = header.layerSizes;
+        this.biased = header.biased;
+        this.transferFunctions = header.transferFunctions;
+        this.weights = weights;
+        this.weightIndex = new int[layerSizes.length];
+
+        int weightsCount = 0;
+        for (int l = 1; l < layerSizes.length; l++) {
+            weightIndex[l] = weightsCount;
+            weightsCount += layerSizes[l] * getRowLength(l);
+        }
+        this.defaultSession = new Session();
+    }
+
+    /**
+     * Maps the model file and creates network calculating over its weights.
+     * The file must not be changed while it is mapped.
+     *
+     * @param filePath model file path
+     * @return network over the mapped weights
+     */
+    public static MappedFlatNetwork open(String filePath) {
+        if (filePath == null) {
+            throw new IllegalArgumentException("File path is null!");
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(filePath, "r")) {
+            FileChannel channel = file.getChannel();
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+            ModelFile.Header header = ModelFile.readHeader(mapped, filePath);
+            mapped.position(header.dataOffset);
+            ByteBuffer data = mapped.slice().order(ByteOrder.LITTLE_ENDIAN);
+            data.limit(header.weightsCount * 8);
+            return new MappedFlatNetwork(header, data.asDoubleBuffer());
+        } catch (IOException ex) {
+            throw new NeuroException("Error mapping model file!", ex);
+        }
+    }
+
+    /**
+     * Creates new session with its own activation buffers. Each thread which
+     * calculates with this network concurrently should use its own session.
+     *
+     * @return new session for this network
+     */
+    public Session newSession() {
+        return new Session();
+    }
+
+    /**
+     * Calculates network output for the specified input, using the default session
+     *
+     * @param input network input vector
+     * @return network output vector (internal buffer, overwritten by next call)
+     */
+    public double[] compute(double... input) {
+        return defaultSession.calculate(input);
+    }
+
+    /**
+     * Calculates network output for the specified input and copies it to the
+     * specified output buffer, using the default session. Does not allocate any memory.
+     *
+     * @param input  network input vector
+     * @param output buffer for network output, at least outputs count long
+     */
+    public void calculate(double[] input, double[] output) {
+        defaultSession.calculate(input, output);
+    }
+
+    /**
+     * Copies this network to the heap
+     *
+     * @return compiled network with the same topology and weights
+     */
+    public FlatNetwork toFlatNetwork() {
+        FlatNetwork flatNetwork = new FlatNetwork(layerSizes, biased, transferFunctions);
+        weights.duplicate().get(flatNetwork.getWeights());
+        return flatNetwork;
+    }
+
+    public int getRowLength(int layer) {
+        return layerSizes[layer - 1] + (biased[layer] ? 1 : 0);
+    }
+
+    public int getWeightIndex(int layer) {
+        return weightIndex[layer];
+    }
+
+    /**
+     * Returns read-only view of the mapped weights, in flat order
+     *
+     * @return weights buffer
+     */
+    public DoubleBuffer getWeights() {
+        return weights.asReadOnlyBuffer();
+    }
+
+    public int getWeightsCount() {
+        return weights.capacity();
+    }
+
+    public int getLayersCount() {
+        return layerSizes.length;
+    }
+
+    public int getLayerSize(int layer) {
+        return layerSizes[layer];
+    }
+
+    public boolean isBiased(int layer) {
+        return biased[layer];
+    }
+
+    public TransferFunction getTransferFunction(int layer) {
+        return transferFunctions[layer];
+    }
+
+    public int getInputsCount() {
+        return layerSizes[0];
+    }
+
+    public int getOutputsCount() {
+        return layerSizes[layerSizes.length - 1];
+    }
+
+    /**
+     * Activation buffers for calculation with a MappedFlatNetwork, the same as
+     * InferenceSession for FlatNetwork. Single session must not be used by several
+     * threads at once.
+     */
+    public class Session {
+        private final double[][] outputs;
+
+        private Session() {
+            outputs = new double[layerSizes.length][];
+            for (int l = 0; l < layerSizes.length; l++) {
+                outputs[l] = new double[layerSizes[l]];
+            }
+        }
+
+        /**
+         * Calculates network output for the specified input
+         *
+         * @param input network input vector
+         * @return network output vector (buffer of this session, overwritten by next call)
+         */
+        public double[] calculate(double... input) {
+            if (input.length != getInputsCount()) {
+                throw new VectorSizeMismatchException("Input vector size does not match network input dimension!");
+            }
+
+            System.arraycopy(input, 0, outputs[0], 0, input.length);
+
+            for (int l = 1; l < outputs.length; l++) {
+                double[] layerInput = outputs[l - 1];
+                double[] layerOutput = outputs[l];
+                TransferFunction transferFunction = transferFunctions[l];
+                int inputsCount = layerInput.length;
+                int rowLength = getRowLength(l);
+                int row = weightIndex[l];
+
+                for (int j = 0; j < layerOutput.length; j++, row += rowLength) {
+                    double sum = 0d;
+                    for (int i = 0; i < inputsCount; i++) {
+                        sum += weights.get(row + i) * layerInput[i];
+                    }
+                    if (biased[l]) {
+                        sum += weights.get(row + inputsCount);
+                    }
+
+                    layerOutput[j] = transferFunction.getOutput(sum);
+                }
+            }
+
+            return outputs[outputs.length - 1];
+        }
+
+        /**
+         * Calculates network output for the specified input and copies it to the
+         * specified output buffer. Does not allocate any memory.
+         *
+         * @param input  network input vector
+         * @param output buffer for network output, at least outputs count long
+         */
+        public void calculate(double[] input, double[] output) {
+            double[] result = calculate(input);
+            System.arraycopy(result, 0, output, 0, result.length);
+        }
+
+        /**
+         * Returns output buffer of specified layer, from the last calculation
+         *
+         * @param layer layer index
+         * @return outputs of layer neurons
+         */
+        public double[] getOutput(int layer) {
+            return outputs[layer];
+        }
+    }
+}
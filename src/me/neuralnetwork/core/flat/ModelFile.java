@@ -0,0 +1,450 @@
+package me.neuralnetwork.core.flat;
+
+import me.neuralnetwork.core.Layer;
+import me.neuralnetwork.core.NeuralNetwork;
+import me.neuralnetwork.core.Neuron;
+import me.neuralnetwork.core.exception.NeuroException;
+import me.neuralnetwork.core.input.WeightedSum;
+import me.neuralnetwork.core.neuron.BiasNeuron;
+import me.neuralnetwork.core.neuron.InputNeuron;
+import me.neuralnetwork.core.transfer.Gaussian;
+import me.neuralnetwork.core.transfer.Linear;
+import me.neuralnetwork.core.transfer.Log;
+import me.neuralnetwork.core.transfer.LookupSigmoid;
+import me.neuralnetwork.core.transfer.LookupTanh;
+import me.neuralnetwork.core.transfer.Ramp;
+import me.neuralnetwork.core.transfer.RationalSigmoid;
+import me.neuralnetwork.core.transfer.RationalTanh;
+import me.neuralnetwork.core.transfer.Sgn;
+import me.neuralnetwork.core.transfer.Sigmoid;
+import me.neuralnetwork.core.transfer.Sin;
+import me.neuralnetwork.core.transfer.Step;
+import me.neuralnetwork.core.transfer.Tanh;
+import me.neuralnetwork.core.transfer.TransferFunction;
+import me.neuralnetwork.core.transfer.Trapezoid;
+import me.neuralnetwork.core.util.ConnectionFactory;
+import me.neuralnetwork.core.util.NeuralNetworkFactory;
+import me.neuralnetwork.core.util.NeuralNetworkType;
+import me.neuralnetwork.core.util.TransferFunctionType;
+import me.neuralnetwork.perceptron.learning.BackPropagation;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Binary model file: topology and weights of a layered feed forward network.
+ *
+ * All values are little-endian. Header:
+ *
+ *      int     magic number "NNMF"
+ *      int     format version
+ *      int     layers count
+ *      int     weights count
+ *      layers  for each layer:
+ *              int     neurons count, bias neurons excluded
+ *              int     1 if layer rows have bias weight (previous layer has bias neuron), else 0
+ *              int     length of UTF-8 bytes of TransferFunctionType name (-1 for input layer) and the bytes
+ *              int     transfer function parameters count and the double parameters
+ *      padding zero bytes up to the multiple of 8
+ *
+ * Header is followed by all weights as doubles, in the order of FlatNetwork weights
+ * (which is the NeuralNetwork.getWeights() order for MultiLayerPerceptron).
+ *
+ * Loading does not use reflection or NeuronFactory. loadFlat() only allocates the
+ * weights array and is the fastest way to get a network for calculation; load()
+ * creates neurons and connections of a NeuralNetwork, which can be trained further.
+ * MappedFlatNetwork calculates directly over the weights of the mapped file, and
+ * loadFloat() gives a single precision FloatFlatNetwork.
+ */
+public final class ModelFile {
+    static final int MAGIC = 0x464D4E4E;
+    static final int VERSION = 1;
+    static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private ModelFile() {
+    }
+
+    /**
+     * Saves topology and weights of the specified network. Network must be layered,
+     * as required by FlatNetwork.compile().
+     *
+     * @param neuralNetwork network to save
+     * @param filePath      file path
+     */
+    public static void save(NeuralNetwork<?> neuralNetwork, String filePath) {
+        if (neuralNetwork == null) {
+            throw new IllegalArgumentException("Neural network cannot be null!");
+        }
+        save(FlatNetwork.compile(neuralNetwork), filePath);
+    }
+
+    /**
+     * Saves topology and weights of the specified compiled network
+     *
+     * @param flatNetwork compiled network to save
+     * @param filePath    file path
+     */
+    public static void save(FlatNetwork flatNetwork, String filePath) {
+        if (flatNetwork == null) {
+            throw new IllegalArgumentException("Flat network cannot be null!");
+        }
+        if (filePath == null) {
+            throw new IllegalArgumentException("File path is null!");
+        }
+
+        int layersCount = flatNetwork.getLayersCount();
+        byte[][] typeNames = new byte[layersCount][];
+        double[][] parameters = new double[layersCount][];
+        int headerSize = 16;
+        for (int l = 0; l < layersCount; l++) {
+            headerSize += 16;
+            if (l > 0) {
+                TransferFunction transferFunction = flatNetwork.getTransferFunction(l);
+                typeNames[l] = typeOf(transferFunction).name().getBytes(CHARSET);
+                parameters[l] = parametersOf(transferFunction);
+                headerSize += typeNames[l].length + parameters[l].length * 8;
+            }
+        }
+        headerSize = align(headerSize);
+
+        double[] weights = flatNetwork.getWeights();
+        ByteBuffer buffer = ByteBuffer.allocate(headerSize + weights.length * 8).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(layersCount).putInt(weights.length);
+        for (int l = 0; l < layersCount; l++) {
+            buffer.putInt(flatNetwork.getLayerSize(l));
+            buffer.putInt(flatNetwork.isBiased(l) ? 1 : 0);
+            if (l == 0) {
+                buffer.putInt(-1).putInt(0);
+            } else {
+                buffer.putInt(typeNames[l].length).put(typeNames[l]);
+                buffer.putInt(parameters[l].length);
+                for (double parameter : parameters[l]) {
+                    buffer.putDouble(parameter);
+                }
+            }
+        }
+        buffer.position(headerSize);
+        buffer.asDoubleBuffer().put(weights);
+
+        try (FileOutputStream out = new FileOutputStream(filePath)) {
+            out.write(buffer.array());
+        } catch (IOException ex) {
+            throw new NeuroException("Error saving model file!", ex);
+        }
+    }
+
+    /**
+     * Loads compiled network from the model file
+     *
+     * @param filePath file path
+     * @return compiled network with the saved weights
+     */
+    public static FlatNetwork loadFlat(String filePath) {
+        ByteBuffer buffer = readFile(filePath);
+        Header header = readHeader(buffer, filePath);
+        FlatNetwork flatNetwork = new FlatNetwork(header.layerSizes, header.biased, header.transferFunctions);
+        buffer.position(header.dataOffset);
+        buffer.asDoubleBuffer().get(flatNetwork.getWeights());
+        return flatNetwork;
+    }
+
+    /**
+     * Loads single precision compiled network from the model file, with weights rounded to float
+     *
+     * @param filePath file path
+     * @return single precision network with the saved weights
+     */
+    public static FloatFlatNetwork loadFloat(String filePath) {
+        ByteBuffer buffer = readFile(filePath);
+        Header header = readHeader(buffer, filePath);
+        FloatFlatNetwork floatNetwork = new FloatFlatNetwork(header.layerSizes, header.biased, header.transferFunctions);
+        buffer.position(header.dataOffset);
+        float[] weights = floatNetwork.getWeights();
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (float) buffer.getDouble();
+        }
+        return floatNetwork;
+    }
+
+    /**
+     * Reads and validates model file header. Buffer must hold the whole file,
+     * in little-endian order.
+     *
+     * @param buffer   file contents
+     * @param filePath file path, used in error messages
+     * @return file header
+     */
+    static Header readHeader(ByteBuffer buffer, String filePath) {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new NeuroException("Not a model file: " + filePath);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new NeuroException("Unsupported model file version: " + version);
+            }
+
+            int layersCount = buffer.getInt();
+            int weightsCount = buffer.getInt();
+            if (layersCount < 2) {
+                throw new NeuroException("Corrupted model file header: " + filePath);
+            }
+
+            Header header = new Header();
+            header.layerSizes = new int[layersCount];
+            header.biased = new boolean[layersCount];
+            header.transferFunctions = new TransferFunction[layersCount];
+            int expectedWeightsCount = 0;
+            for (int l = 0; l < layersCount; l++) {
+                header.layerSizes[l] = buffer.getInt();
+                header.biased[l] = buffer.getInt() != 0;
+                int nameLength = buffer.getInt();
+                String typeName = null;
+                if (nameLength >= 0) {
+                    byte[] name = new byte[nameLength];
+                    buffer.get(name);
+                    typeName = new String(name, CHARSET);
+                }
+                double[] parameters = new double[buffer.getInt()];
+                for (int p = 0; p < parameters.length; p++) {
+                    parameters[p] = buffer.getDouble();
+                }
+
+                if ((header.layerSizes[l] <= 0) || ((l > 0) && (typeName == null))) {
+                    throw new NeuroException("Corrupted model file header: " + filePath);
+                }
+                if (l > 0) {
+                    header.transferFunctions[l] = createTransferFunction(typeName, parameters);
+                    expectedWeightsCount += header.layerSizes[l] * (header.layerSizes[l - 1] + (header.biased[l] ? 1 : 0));
+                }
+            }
+
+            if (expectedWeightsCount != weightsCount) {
+                throw new NeuroException("Model file weights count does not match its topology: " + filePath);
+            }
+            header.weightsCount = weightsCount;
+            header.dataOffset = align(buffer.position());
+            if (buffer.limit() < header.dataOffset + (long) weightsCount * 8) {
+                throw new NeuroException("Model file is truncated: " + filePath);
+            }
+            return header;
+        } catch (BufferUnderflowException ex) {
+            throw new NeuroException("Model file is truncated: " + filePath, ex);
+        }
+    }
+
+    /**
+     * Loads network from the model file. Each layer gets a bias neuron if the next
+     * layer rows have bias weights, as in MultiLayerPerceptron.
+     *
+     * @param filePath file path
+     * @return network with the saved topology and weights
+     */
+    public static NeuralNetwork<BackPropagation> load(String filePath) {
+        FlatNetwork flatNetwork = loadFlat(filePath);
+        int layersCount = flatNetwork.getLayersCount();
+        double[] weights = flatNetwork.getWeights();
+
+        NeuralNetwork<BackPropagation> neuralNetwork = new NeuralNetwork<>();
+        neuralNetwork.setNetworkType(NeuralNetworkType.MULTI_LAYER_PERCEPTRON);
+
+        Neuron[] previous = null;
+        Neuron previousBias = null;
+        for (int l = 0; l < layersCount; l++) {
+            int size = flatNetwork.getLayerSize(l);
+            Layer layer = new Layer(size);
+            Neuron[] neurons = new Neuron[size];
+            for (int j = 0; j < size; j++) {
+                neurons[j] = l == 0
+                        ? new InputNeuron()
+                        : new Neuron(new WeightedSum(), copyOf(flatNetwork.getTransferFunction(l)));
+                layer.addNeuron(neurons[j]);
+
+                if (l > 0) {
+                    int row = flatNetwork.getWeightIndex(l) + j * flatNetwork.getRowLength(l);
+                    for (int i = 0; i < previous.length; i++) {
+                        ConnectionFactory.createConnection(previous[i], neurons[j], weights[row + i]);
+                    }
+                    if (flatNetwork.isBiased(l)) {
+                        ConnectionFactory.createConnection(previousBias, neurons[j], weights[row + previous.length]);
+                    }
+                }
+            }
+
+            previousBias = null;
+            if ((l < layersCount - 1) && flatNetwork.isBiased(l + 1)) {
+                previousBias = new BiasNeuron();
+                layer.addNeuron(previousBias);
+            }
+
+            neuralNetwork.addLayer(layer);
+            previous = neurons;
+        }
+
+        NeuralNetworkFactory.setDefaultIO(neuralNetwork);
+        neuralNetwork.setLearningRule(new BackPropagation());
+        return neuralNetwork;
+    }
+
+    private static ByteBuffer readFile(String filePath) {
+        if (filePath == null) {
+            throw new IllegalArgumentException("File path is null!");
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(filePath, "r")) {
+            byte[] bytes = new byte[(int) file.length()];
+            file.readFully(bytes);
+            return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException ex) {
+            throw new NeuroException("Error reading model file!", ex);
+        }
+    }
+
+    private static TransferFunctionType typeOf(TransferFunction transferFunction) {
+        TransferFunctionType type = findType(transferFunction);
+        if (type != null) {
+            return type;
+        }
+        throw new NeuroException("Transfer function " + transferFunction.getClass().getName() + " cannot be saved to model file!");
+    }
+
+    /**
+     * Checks if two transfer functions calculate the same outputs: same class and, for
+     * TransferFunctionType types, the same parameters
+     */
+    static boolean isSameFunction(TransferFunction first, TransferFunction second) {
+        if (first.getClass() != second.getClass()) {
+            return false;
+        }
+        return (findType(first) == null) || Arrays.equals(parametersOf(first), parametersOf(second));
+    }
+
+    private static TransferFunctionType findType(TransferFunction transferFunction) {
+        for (TransferFunctionType type : TransferFunctionType.values()) {
+            if (transferFunction.getClass() == type.getTypeClass()) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns parameters of the transfer function, in the order used by createTransferFunction()
+     */
+    private static double[] parametersOf(TransferFunction transferFunction) {
+        switch (typeOf(transferFunction)) {
+            case LINEAR:
+                return new double[]{((Linear) transferFunction).getSlope()};
+            case SIGMOID:
+            case SIGMOID_LOOKUP:
+            case SIGMOID_RATIONAL:
+                return new double[]{((Sigmoid) transferFunction).getSlope()};
+            case TANH:
+            case TANH_LOOKUP:
+            case TANH_RATIONAL:
+                return new double[]{((Tanh) transferFunction).getSlope()};
+            case GAUSSIAN:
+                return new double[]{((Gaussian) transferFunction).getSigma()};
+            case STEP:
+                Step step = (Step) transferFunction;
+                return new double[]{step.getYHigh(), step.getYLow()};
+            case RAMP:
+                Ramp ramp = (Ramp) transferFunction;
+                return new double[]{ramp.getSlope(), ramp.getXLow(), ramp.getXHigh(), ramp.getYLow(), ramp.getYHigh()};
+            case TRAPEZOID:
+                Trapezoid trapezoid = (Trapezoid) transferFunction;
+                return new double[]{trapezoid.getLeftLow(), trapezoid.getLeftHigh(),
+                        trapezoid.getRightLow(), trapezoid.getRightHigh()};
+            default:
+                return new double[0];
+        }
+    }
+
+    private static TransferFunction createTransferFunction(String typeName, double[] parameters) {
+        TransferFunctionType type;
+        try {
+            type = TransferFunctionType.valueOf(typeName);
+        } catch (IllegalArgumentException ex) {
+            throw new NeuroException("Unknown transfer function type in model file: " + typeName);
+        }
+
+        try {
+            switch (type) {
+                case LINEAR:
+                    return new Linear(parameters[0]);
+                case SIGMOID:
+                    return new Sigmoid(parameters[0]);
+                case TANH:
+                    return new Tanh(parameters[0]);
+                case GAUSSIAN:
+                    Gaussian gaussian = new Gaussian();
+                    gaussian.setSigma(parameters[0]);
+                    return gaussian;
+                case STEP:
+                    Step step = new Step();
+                    step.setYHigh(parameters[0]);
+                    step.setYLow(parameters[1]);
+                    return step;
+                case RAMP:
+                    return new Ramp(parameters[0], parameters[1], parameters[2], parameters[3], parameters[4]);
+                case TRAPEZOID:
+                    return new Trapezoid(parameters[0], parameters[1], parameters[2], parameters[3]);
+                case SGN:
+                    return new Sgn();
+                case SIN:
+                    return new Sin();
+                case LOG:
+                    return new Log();
+                case SIGMOID_LOOKUP:
+                    return new LookupSigmoid(parameters[0]);
+                case SIGMOID_RATIONAL:
+                    return new RationalSigmoid(parameters[0]);
+                case TANH_LOOKUP:
+                    return new LookupTanh(parameters[0]);
+                case TANH_RATIONAL:
+                    return new RationalTanh(parameters[0]);
+                default:
+                    throw new NeuroException("Unknown transfer function type in model file: " + typeName);
+            }
+        } catch (ArrayIndexOutOfBoundsException ex) {
+            throw new NeuroException("Missing " + typeName + " transfer function parameters in model file!", ex);
+        }
+    }
+
+    /**
+     * Returns a new transfer function with the same type and parameters, so neurons
+     * of the loaded network (or compiled layers) do not share one instance. Functions
+     * which are not TransferFunctionType types cannot be copied and are returned as they are.
+     */
+    static TransferFunction copyOf(TransferFunction transferFunction) {
+        if (findType(transferFunction) == null) {
+            return transferFunction;
+        }
+        return createTransferFunction(typeOf(transferFunction).name(), parametersOf(transferFunction));
+    }
+
+    private static int align(int size) {
+        return (size + 7) & ~7;
+    }
+
+    /**
+     * Model file header
+     */
+    static final class Header {
+        int[] layerSizes;
+        boolean[] biased;
+        TransferFunction[] transferFunctions;
+        int weightsCount;
+
+        /**
+         * Position of the first weight in the file
+         */
+        int dataOffset;
+    }
+}
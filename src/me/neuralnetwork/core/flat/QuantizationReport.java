@@ -0,0 +1,136 @@
+package me.neuralnetwork.core.flat;
+
+/**
+ * Accuracy drift of a quantized network against the network it was quantized from,
+ * collected by QuantizedNetwork.evaluate() on a held-out data set.
+ *
+ * Errors are mean squared errors per output value. Decision agreement is the fraction
+ * of rows for which both networks give the same decision: the index of the largest
+ * output, or output above 0.5 for networks with a single output.
+ */
+public class QuantizationReport {
+    private int rowsCount;
+    private int valuesCount;
+    private double maxDifference;
+    private double differenceSum;
+    private double referenceSquaredErrorSum;
+    private double quantizedSquaredErrorSum;
+    private int sameDecisionsCount;
+    private boolean supervised = true;
+
+    QuantizationReport() {
+    }
+
+    /**
+     * Adds outputs of both networks for one row
+     *
+     * @param referenceOutput output of the reference network
+     * @param output          output of the quantized network
+     * @param desiredOutput   desired output, null if data set is not supervised
+     */
+    void addRow(double[] referenceOutput, double[] output, double[] desiredOutput) {
+        for (int k = 0; k < output.length; k++) {
+            double difference = Math.abs(referenceOutput[k] - output[k]);
+            maxDifference = Math.max(maxDifference, difference);
+            differenceSum += difference;
+
+            if (desiredOutput != null) {
+                double referenceError = desiredOutput[k] - referenceOutput[k];
+                double quantizedError = desiredOutput[k] - output[k];
+                referenceSquaredErrorSum += referenceError * referenceError;
+                quantizedSquaredErrorSum += quantizedError * quantizedError;
+            }
+        }
+
+        if (desiredOutput == null) {
+            supervised = false;
+        }
+        if (decision(referenceOutput) == decision(output)) {
+            sameDecisionsCount++;
+        }
+        valuesCount += output.length;
+        rowsCount++;
+    }
+
+    private static int decision(double[] output) {
+        if (output.length == 1) {
+            return output[0] > 0.5d ? 1 : 0;
+        }
+        int best = 0;
+        for (int k = 1; k < output.length; k++) {
+            if (output[k] > output[best]) {
+                best = k;
+            }
+        }
+        return best;
+    }
+
+    public int getRowsCount() {
+        return rowsCount;
+    }
+
+    /**
+     * Returns the largest absolute difference between outputs of the networks
+     *
+     * @return max output difference
+     */
+    public double getMaxDifference() {
+        return maxDifference;
+    }
+
+    /**
+     * Returns mean absolute difference between outputs of the networks
+     *
+     * @return mean output difference
+     */
+    public double getMeanDifference() {
+        return valuesCount > 0 ? differenceSum / valuesCount : 0d;
+    }
+
+    /**
+     * Returns mean squared error of the reference network, NaN if data set is not supervised
+     *
+     * @return reference network error
+     */
+    public double getReferenceError() {
+        return supervised && (valuesCount > 0) ? referenceSquaredErrorSum / valuesCount : Double.NaN;
+    }
+
+    /**
+     * Returns mean squared error of the quantized network, NaN if data set is not supervised
+     *
+     * @return quantized network error
+     */
+    public double getQuantizedError() {
+        return supervised && (valuesCount > 0) ? quantizedSquaredErrorSum / valuesCount : Double.NaN;
+    }
+
+    /**
+     * Returns fraction of rows for which both networks give the same decision
+     *
+     * @return decision agreement, from 0 to 1
+     */
+    public double getDecisionAgreement() {
+        return rowsCount > 0 ? (double) sameDecisionsCount / rowsCount : 1d;
+    }
+
+    /**
+     * Checks if quantized network is accurate enough
+     *
+     * @param maxErrorIncrease allowed increase of mean squared error (ignored if data set is not supervised)
+     * @param minAgreement     minimal decision agreement
+     * @return true if the quantized network can be accepted
+     */
+    public boolean isAcceptable(double maxErrorIncrease, double minAgreement) {
+        boolean errorAccepted = !supervised || (getQuantizedError() - getReferenceError() <= maxErrorIncrease);
+        return errorAccepted && (getDecisionAgreement() >= minAgreement);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rows %d, max difference %.3e, mean difference %.3e, reference error %.6f, "
+                        + "quantized error %.6f, decision agreement %.4f",
+                rowsCount, getMaxDifference(), getMeanDifference(), getReferenceError(),
+                getQuantizedError(), getDecisionAgreement());
+    }
+}
@@ -0,0 +1,287 @@
+package me.neuralnetwork.core.flat;
+
+import me.neuralnetwork.core.NeuralNetwork;
+import me.neuralnetwork.core.data.DataSet;
+import me.neuralnetwork.core.data.DataSetRow;
+import me.neuralnetwork.core.exception.VectorSizeMismatchException;
+import me.neuralnetwork.core.transfer.TransferFunction;
+
+import java.util.Iterator;
+
+/**
+ * Compiled network with weights quantized to 8 bit integers, for inference only.
+ *
+ * Weights of each layer are mapped symmetrically to [-127, 127] with a scale factor:
+ *
+ *      q = round(weight / scale),  scale = max(|weight|) / 127
+ *
+ * taken over the whole layer, or over each neuron row when per neuron scales are used
+ * (more accurate when neurons have weights of different magnitudes). Bias weights are
+ * kept in double. Layer inputs are quantized the same way, with the scale of the current
+ * input vector, the weighted sums are calculated in int arithmetic and dequantized
+ * before the transfer function:
+ *
+ *      net = sum(qWeight * qInput) * weightScale * inputScale + bias
+ *
+ * Use evaluate() to measure accuracy drift against the double network before
+ * accepting the quantized one.
+ */
+public class QuantizedNetwork {
+    private static final int MAX_LEVEL = 127;
+
+    private final int[] layerSizes;
+    private final boolean[] biased;
+    private final TransferFunction[] transferFunctions;
+
+    /**
+     * Index of the first quantized weight of each layer, rows of layer have layerSizes[l - 1] weights
+     */
+    private final int[] weightIndex;
+    private final byte[] weights;
+
+    /**
+     * Index of the first neuron of each layer in biases and scales arrays
+     */
+    private final int[] neuronIndex;
+    private final double[] biases;
+    private final double[] scales;
+    private final boolean perNeuronScales;
+
+    private final Session defaultSession;
+
+    /**
+     * Quantizes weights of the specified compiled network
+     *
+     * @param flatNetwork     compiled network
+     * @param perNeuronScales true for scale factor of each neuron, false for one scale factor per layer
+     */
+    public QuantizedNetwork(FlatNetwork flatNetwork, boolean perNeuronScales) {
+        int layersCount = flatNetwork.getLayersCount();
+        this.perNeuronScales = perNeuronScales;
+        this.layerSizes = new int[layersCount];
+        this.biased = new boolean[layersCount];
+        this.transferFunctions = new TransferFunction[layersCount];
+        this.weightIndex = new int[layersCount];
+        this.neuronIndex = new int[layersCount];
+
+        int weightsCount = 0;
+        int neuronsCount = 0;
+        for (int l = 0; l < layersCount; l++) {
+            layerSizes[l] = flatNetwork.getLayerSize(l);
+            biased[l] = flatNetwork.isBiased(l);
+            transferFunctions[l] = flatNetwork.getTransferFunction(l);
+            if (l > 0) {
+                weightIndex[l] = weightsCount;
+                neuronIndex[l] = neuronsCount;
+                weightsCount += layerSizes[l] * layerSizes[l - 1];
+                neuronsCount += layerSizes[l];
+            }
+        }
+
+        this.weights = new byte[weightsCount];
+        this.biases = new double[neuronsCount];
+        this.scales = new double[neuronsCount];
+        double[] flatWeights = flatNetwork.getWeights();
+        for (int l = 1; l < layersCount; l++) {
+            quantizeLayer(flatNetwork, flatWeights, l);
+        }
+
+        this.defaultSession = new Session();
+    }
+
+    /**
+     * Compiles and quantizes specified network, with scale factor of each neuron
+     *
+     * @param neuralNetwork network to quantize, must be layered as required by FlatNetwork.compile()
+     * @return quantized network
+     */
+    public static QuantizedNetwork quantize(NeuralNetwork<?> neuralNetwork) {
+        return new QuantizedNetwork(FlatNetwork.compile(neuralNetwork), true);
+    }
+
+    private void quantizeLayer(FlatNetwork flatNetwork, double[] flatWeights, int layer) {
+        int inputsCount = layerSizes[layer - 1];
+        int rowLength = flatNetwork.getRowLength(layer);
+        int flatIndex = flatNetwork.getWeightIndex(layer);
+
+        double layerMax = 0d;
+        for (int j = 0; j < layerSizes[layer]; j++) {
+            layerMax = Math.max(layerMax, maxAbs(flatWeights, flatIndex + j * rowLength, inputsCount));
+        }
+
+        for (int j = 0; j < layerSizes[layer]; j++) {
+            int row = flatIndex + j * rowLength;
+            double max = perNeuronScales ? maxAbs(flatWeights, row, inputsCount) : layerMax;
+            double scale = max > 0d ? max / MAX_LEVEL : 1d;
+            int neuron = neuronIndex[layer] + j;
+            scales[neuron] = scale;
+            biases[neuron] = biased[layer] ? flatWeights[row + inputsCount] : 0d;
+
+            int quantizedRow = weightIndex[layer] + j * inputsCount;
+            for (int i = 0; i < inputsCount; i++) {
+                weights[quantizedRow + i] = (byte) Math.round(flatWeights[row + i] / scale);
+            }
+        }
+    }
+
+    private static double maxAbs(double[] values, int from, int count) {
+        double max = 0d;
+        for (int i = from; i < from + count; i++) {
+            max = Math.max(max, Math.abs(values[i]));
+        }
+        return max;
+    }
+
+    /**
+     * Compares outputs of this network with the outputs of the reference network
+     * for all rows of the specified data set
+     *
+     * @param reference network this network was quantized from
+     * @param dataSet   held-out data set
+     * @return accuracy drift report
+     */
+    public QuantizationReport evaluate(FlatNetwork reference, DataSet dataSet) {
+        if ((reference.getInputsCount() != getInputsCount()) || (reference.getOutputsCount() != getOutputsCount())) {
+            throw new VectorSizeMismatchException("Reference network dimensions do not match quantized network!");
+        }
+
+        InferenceSession referenceSession = reference.newSession();
+        Session session = newSession();
+        QuantizationReport report = new QuantizationReport();
+
+        Iterator<DataSetRow> iterator = dataSet.iterator();
+        while (iterator.hasNext()) {
+            DataSetRow row = iterator.next();
+            double[] referenceOutput = referenceSession.calculate(row.getInput());
+            double[] output = session.calculate(row.getInput());
+            double[] desiredOutput = dataSet.isSupervised() ? row.getDesiredOutput() : null;
+            report.addRow(referenceOutput, output, desiredOutput);
+        }
+        return report;
+    }
+
+    /**
+     * Creates new session with its own activation buffers. Each thread which
+     * calculates with this network concurrently should use its own session.
+     *
+     * @return new session for this network
+     */
+    public Session newSession() {
+        return new Session();
+    }
+
+    /**
+     * Calculates network output for the specified input, using the default session
+     *
+     * @param input network input vector
+     * @return network output vector (internal buffer, overwritten by next call)
+     */
+    public double[] compute(double... input) {
+        return defaultSession.calculate(input);
+    }
+
+    /**
+     * Returns quantized weights of all layers, without bias weights. Row of neuron j of
+     * layer l starts at getWeightIndex(l) + j * getLayerSize(l - 1).
+     *
+     * @return quantized weights
+     */
+    public byte[] getWeights() {
+        return weights;
+    }
+
+    public int getWeightIndex(int layer) {
+        return weightIndex[layer];
+    }
+
+    /**
+     * Returns weight scale factor of the specified neuron
+     *
+     * @param layer  layer index (greater than zero)
+     * @param neuron neuron index in layer
+     * @return scale factor
+     */
+    public double getScale(int layer, int neuron) {
+        return scales[neuronIndex[layer] + neuron];
+    }
+
+    public boolean isPerNeuronScales() {
+        return perNeuronScales;
+    }
+
+    public int getLayersCount() {
+        return layerSizes.length;
+    }
+
+    public int getLayerSize(int layer) {
+        return layerSizes[layer];
+    }
+
+    public int getInputsCount() {
+        return layerSizes[0];
+    }
+
+    public int getOutputsCount() {
+        return layerSizes[layerSizes.length - 1];
+    }
+
+    /**
+     * Activation buffers for calculation with a QuantizedNetwork. Single session
+     * must not be used by several threads at once.
+     */
+    public class Session {
+        private final double[][] outputs;
+        private final byte[] quantizedInput;
+
+        private Session() {
+            outputs = new double[layerSizes.length][];
+            int maxSize = 0;
+            for (int l = 0; l < layerSizes.length; l++) {
+                outputs[l] = new double[layerSizes[l]];
+                maxSize = Math.max(maxSize, layerSizes[l]);
+            }
+            quantizedInput = new byte[maxSize];
+        }
+
+        /**
+         * Calculates network output for the specified input
+         *
+         * @param input network input vector
+         * @return network output vector (buffer of this session, overwritten by next call)
+         */
+        public double[] calculate(double... input) {
+            if (input.length != getInputsCount()) {
+                throw new VectorSizeMismatchException("Input vector size does not match network input dimension!");
+            }
+
+            System.arraycopy(input, 0, outputs[0], 0, input.length);
+
+            for (int l = 1; l < outputs.length; l++) {
+                double[] layerInput = outputs[l - 1];
+                double[] layerOutput = outputs[l];
+                TransferFunction transferFunction = transferFunctions[l];
+                int inputsCount = layerInput.length;
+
+                double max = maxAbs(layerInput, 0, inputsCount);
+                double inputScale = max > 0d ? max / MAX_LEVEL : 1d;
+                for (int i = 0; i < inputsCount; i++) {
+                    quantizedInput[i] = (byte) Math.round(layerInput[i] / inputScale);
+                }
+
+                int row = weightIndex[l];
+                int neuron = neuronIndex[l];
+                for (int j = 0; j < layerOutput.length; j++, row += inputsCount, neuron++) {
+                    int sum = 0;
+                    for (int i = 0; i < inputsCount; i++) {
+                        sum += weights[row + i] * quantizedInput[i];
+                    }
+
+                    double net = sum * scales[neuron] * inputScale + biases[neuron];
+                    layerOutput[j] = transferFunction.getOutput(net);
+                }
+            }
+
+            return outputs[outputs.length - 1];
+        }
+    }
+}
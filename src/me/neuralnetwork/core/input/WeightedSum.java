@@ -2,6 +2,9 @@ package me.neuralnetwork.core.input;
 
 import me.neuralnetwork.core.Connection;
 
+import java.util.List;
+import java.util.RandomAccess;
+
 /**
  * Optimized version of weighted input function
  *
@@ -12,6 +15,15 @@ public class WeightedSum extends InputFunction {
     public double getOutput(Iterable<Connection> inputConnections) {
         double output = 0d;
 
+        // index random access lists directly, to avoid creating iterator for every neuron calculation
+        if (inputConnections instanceof RandomAccess) {
+            List<Connection> connections = (List<Connection>) inputConnections;
+            for (int i = 0; i < connections.size(); i++) {
+                output += connections.get(i).getWeightedInput();
+            }
+            return output;
+        }
+
         for (Connection connection : inputConnections) {
             output += connection.getWeightedInput();
         }
@@ -0,0 +1,115 @@
+package me.neuralnetwork.core.learning;
+
+import me.neuralnetwork.core.exception.NeuroException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Snapshot of a learning run: network weights, number of finished iterations and
+ * the state of the learning rule (errors, optimizer and rule specific values saved
+ * by IterativeLearning.saveState()).
+ *
+ * Checkpoint file is first written to a temporary file in the same directory, which
+ * is synced to disk and then renamed to the checkpoint file, so a crash while writing
+ * never leaves a partially written checkpoint in its place.
+ */
+public final class Checkpoint implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int iteration;
+    private final double[] weights;
+    private final HashMap<String, Serializable> state;
+
+    public Checkpoint(int iteration, double[] weights, Map<String, Serializable> state) {
+        if ((weights == null) || (state == null)) {
+            throw new IllegalArgumentException("Checkpoint weights and state cannot be null!");
+        }
+        this.iteration = iteration;
+        this.weights = weights.clone();
+        this.state = new HashMap<>(state);
+    }
+
+    /**
+     * Writes checkpoint to the specified file, replacing the previous checkpoint atomically
+     *
+     * @param filePath checkpoint file path
+     */
+    public void save(String filePath) {
+        if (filePath == null) {
+            throw new IllegalArgumentException("File path is null!");
+        }
+
+        Path target = new File(filePath).getAbsoluteFile().toPath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+                ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(file));
+                out.writeObject(this);
+                out.flush();
+                file.getFD().sync();
+            }
+
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            throw new NeuroException("Error saving checkpoint file!", ex);
+        }
+    }
+
+    /**
+     * Reads checkpoint from the specified file
+     *
+     * @param filePath checkpoint file path
+     * @return checkpoint
+     */
+    public static Checkpoint load(String filePath) {
+        if (filePath == null) {
+            throw new IllegalArgumentException("File path is null!");
+        }
+
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(filePath)))) {
+            return (Checkpoint) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException ex) {
+            throw new NeuroException("Error reading checkpoint file!", ex);
+        }
+    }
+
+    /**
+     * Returns number of learning iterations finished before the checkpoint
+     *
+     * @return finished iterations
+     */
+    public int getIteration() {
+        return iteration;
+    }
+
+    public double[] getWeights() {
+        return weights.clone();
+    }
+
+    /**
+     * Returns learning rule state saved in the checkpoint
+     *
+     * @return state values by name
+     */
+    public Map<String, Serializable> getState() {
+        return new HashMap<>(state);
+    }
+}
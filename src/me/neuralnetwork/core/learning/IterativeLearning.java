@@ -3,11 +3,17 @@ package me.neuralnetwork.core.learning;
 import me.neuralnetwork.core.data.DataSet;
 import me.neuralnetwork.core.event.LearningEvent;
 import me.neuralnetwork.core.event.LearningEventType;
+import me.neuralnetwork.core.exception.NeuroException;
 import me.neuralnetwork.core.learning.stop.MaxIterationsStop;
 import me.neuralnetwork.core.learning.stop.StopCondition;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 abstract public class IterativeLearning extends LearningRule {
     protected double learningRate = 0.1d;
@@ -19,6 +25,29 @@ abstract public class IterativeLearning extends LearningRule {
      * Flag for indicating if learning thread is paused
      */
     private volatile boolean pausedLearning = false;
+    /**
+     * File to save checkpoints to, null if checkpointing is disabled
+     */
+    private String checkpointFile;
+    /**
+     * Save checkpoint after this number of iterations (zero to not count iterations)
+     */
+    private int checkpointIterations;
+    /**
+     * Save checkpoint when this number of milliseconds has passed since the last one
+     * (zero to not count time)
+     */
+    private long checkpointMillis;
+    private transient long lastCheckpointTime;
+    private transient int lastCheckpointIteration;
+    /**
+     * Checkpoint to continue from in the next learn() call
+     */
+    private transient Checkpoint startCheckpoint;
+    /**
+     * True if the last epoch was stopped before all its patterns were learned
+     */
+    private transient boolean epochInterrupted;
 
     public IterativeLearning() {
         super();
@@ -67,6 +96,116 @@ abstract public class IterativeLearning extends LearningRule {
         }
     }
 
+    /**
+     * Enables periodic checkpoints of the learning. Checkpoint is saved after every
+     * specified number of iterations, or when specified time has passed since the last
+     * checkpoint, whichever comes first, and when learning stops. Use learnFromCheckpoint()
+     * to continue learning from the saved checkpoint.
+     *
+     * Checkpoints are saved only between complete epochs. If learning is stopped in the
+     * middle of an epoch, that epoch is not counted and no checkpoint is saved for it,
+     * so learning continued from the last checkpoint repeats the whole epoch.
+     *
+     * @param filePath          checkpoint file path, null to disable checkpoints
+     * @param everyIterations   number of iterations between checkpoints, zero to not count iterations
+     * @param everyMilliseconds milliseconds between checkpoints, zero to not count time
+     */
+    public void setCheckpointing(String filePath, int everyIterations, long everyMilliseconds) {
+        if ((everyIterations < 0) || (everyMilliseconds < 0)) {
+            throw new IllegalArgumentException("Checkpoint interval cannot be negative!");
+        }
+        this.checkpointFile = filePath;
+        this.checkpointIterations = everyIterations;
+        this.checkpointMillis = everyMilliseconds;
+    }
+
+    public String getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    /**
+     * Creates checkpoint with current network weights and learning state
+     *
+     * @return checkpoint of the learning
+     */
+    public Checkpoint createCheckpoint() {
+        Double[] networkWeights = neuralNetwork.getWeights();
+        double[] weights = new double[networkWeights.length];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = networkWeights[i];
+        }
+
+        Map<String, Serializable> state = new HashMap<>();
+        saveState(state);
+        return new Checkpoint(currentIteration, weights, state);
+    }
+
+    /**
+     * Continues learning from the checkpoint saved in the specified file. Network must
+     * have the same topology as the network the checkpoint was created with.
+     *
+     * @param trainingSet training set
+     * @param filePath    checkpoint file path
+     */
+    public void learnFromCheckpoint(DataSet trainingSet, String filePath) {
+        learnFromCheckpoint(trainingSet, Checkpoint.load(filePath));
+    }
+
+    /**
+     * Continues learning from the specified checkpoint. Network must have the same
+     * topology as the network the checkpoint was created with.
+     *
+     * @param trainingSet training set
+     * @param checkpoint  checkpoint to continue from
+     */
+    public void learnFromCheckpoint(DataSet trainingSet, Checkpoint checkpoint) {
+        if (checkpoint == null) {
+            throw new IllegalArgumentException("Checkpoint cannot be null!");
+        }
+        if (checkpoint.getWeights().length != neuralNetwork.getWeights().length) {
+            throw new NeuroException("Checkpoint weights count does not match network weights count!");
+        }
+        this.startCheckpoint = checkpoint;
+        learn(trainingSet);
+    }
+
+    /**
+     * Saves learning state, which is needed to continue learning exactly, to checkpoint.
+     * Network weights and iteration are saved by the checkpoint itself. Subclasses
+     * which keep state between iterations should override this method and restoreState(),
+     * and call parent methods first.
+     *
+     * @param state map to put state values to
+     */
+    protected void saveState(Map<String, Serializable> state) {
+    }
+
+    /**
+     * Restores learning state saved by saveState(). Called after onStart(), network
+     * weights and current iteration are already restored at that point.
+     *
+     * @param state state values from checkpoint
+     */
+    protected void restoreState(Map<String, Serializable> state) {
+    }
+
+    private boolean isCheckpointDue() {
+        if (checkpointFile == null) {
+            return false;
+        }
+        boolean iterationsPassed = (checkpointIterations > 0)
+                && (currentIteration - lastCheckpointIteration >= checkpointIterations);
+        boolean timePassed = (checkpointMillis > 0)
+                && (System.currentTimeMillis() - lastCheckpointTime >= checkpointMillis);
+        return iterationsPassed || timePassed;
+    }
+
+    private void saveCheckpoint() {
+        createCheckpoint().save(checkpointFile);
+        lastCheckpointTime = System.currentTimeMillis();
+        lastCheckpointIteration = currentIteration;
+    }
+
     /**
      * This method is executed when learning starts, before the first epoch.
      * Used for initialisation.
@@ -91,39 +230,104 @@ abstract public class IterativeLearning extends LearningRule {
     @Override
     final public void learn(DataSet trainingSet) {
         setTrainingSet(trainingSet); // set this field here su subclasses can access it 
+
+        // weights are restored before onStart(), so subclasses start from them
+        Checkpoint checkpoint = startCheckpoint;
+        startCheckpoint = null;
+        if (checkpoint != null) {
+            neuralNetwork.setWeights(checkpoint.getWeights());
+        }
+
         onStart();
 
-        while (!isStopped()) {
-            beforeEpoch();
-            doLearningEpoch(trainingSet);
-            this.currentIteration++;
-            fireLearningEvent(new LearningEvent(this, LearningEventType.EPOCH_ENDED));
-            afterEpoch();
-
-            // now check if stop condition is satisfied
-            if (hasReachedStopCondition()) {
-                stopLearning();
-            } else if (!iterationsLimited && (currentIteration == Integer.MAX_VALUE)) {
-                // if counter has reached max value and iteration number is not limited restart iteration counter
-                this.currentIteration = 1;
+        try {
+            if (checkpoint != null) {
+                this.currentIteration = checkpoint.getIteration();
+                restoreState(checkpoint.getState());
             }
+            lastCheckpointTime = System.currentTimeMillis();
+            lastCheckpointIteration = currentIteration;
 
+            epochInterrupted = false;
+            while (!isStopped()) {
+                beforeEpoch();
+                doLearningEpoch(trainingSet);
+                if (epochInterrupted) {
+                    // partial epoch is neither counted nor saved in checkpoint
+                    afterEpoch();
+                    break;
+                }
+                this.currentIteration++;
+                fireLearningEvent(new LearningEvent(this, LearningEventType.EPOCH_ENDED));
+                afterEpoch();
 
-            // Thread safe pause when learning is paused
-            if (this.pausedLearning) {
-                synchronized (this) {
-                    while (this.pausedLearning) {
-                        try {
-                            this.wait();
-                        } catch (Exception e) {
-                            e.printStackTrace();
+                // now check if stop condition is satisfied
+                if (hasReachedStopCondition()) {
+                    stopLearning();
+                } else if (!iterationsLimited && (currentIteration == Integer.MAX_VALUE)) {
+                    // if counter has reached max value and iteration number is not limited restart iteration counter
+                    this.currentIteration = 1;
+                }
+
+                if (!isStopped() && isCheckpointDue()) {
+                    saveCheckpoint();
+                }
+
+                // Thread safe pause when learning is paused
+                if (this.pausedLearning) {
+                    synchronized (this) {
+                        while (this.pausedLearning) {
+                            try {
+                                this.wait();
+                            } catch (Exception e) {
+                                e.printStackTrace();
+                            }
                         }
                     }
                 }
+
+            }
+
+            if ((checkpointFile != null) && !epochInterrupted) {
+                saveCheckpoint();
+            }
+        } finally {
+            // release files and threads of data sets which read rows while iterated, also when
+            // an epoch stopped early or failed and left its iteration open
+            try {
+                closeTrainingSet(trainingSet);
+            } finally {
+                onStop();
             }
+        }
+    }
 
+    private static void closeTrainingSet(DataSet trainingSet) {
+        if (trainingSet instanceof Closeable) {
+            try {
+                ((Closeable) trainingSet).close();
+            } catch (IOException ex) {
+                throw new NeuroException("Error closing training set!", ex);
+            }
         }
-        onStop();
+    }
+
+    /**
+     * Marks the current epoch as stopped before all its patterns were learned. Learning
+     * rules which stop an epoch early (when learning is stopped) must call this method
+     * from doLearningEpoch(), so the epoch is not taken as complete.
+     */
+    protected void setEpochInterrupted() {
+        this.epochInterrupted = true;
+    }
+
+    /**
+     * Returns true if the last epoch was stopped before all its patterns were learned
+     *
+     * @return true if the last epoch is incomplete
+     */
+    public boolean isEpochInterrupted() {
+        return epochInterrupted;
     }
 
     protected boolean hasReachedStopCondition() {
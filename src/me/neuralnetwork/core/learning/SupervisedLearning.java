@@ -1,16 +1,21 @@
 package me.neuralnetwork.core.learning;
 
-import me.neuralnetwork.core.Connection;
 import me.neuralnetwork.core.Layer;
 import me.neuralnetwork.core.Neuron;
 import me.neuralnetwork.core.Weight;
 import me.neuralnetwork.core.data.DataSet;
 import me.neuralnetwork.core.data.DataSetRow;
+import me.neuralnetwork.core.exception.NeuroException;
 import me.neuralnetwork.core.learning.error.ErrorFunction;
 import me.neuralnetwork.core.learning.error.MeanSquaredError;
+import me.neuralnetwork.core.learning.optimizer.Optimizer;
+import me.neuralnetwork.core.learning.optimizer.SgdOptimizer;
 import me.neuralnetwork.core.learning.stop.MaxErrorStop;
 
+import java.io.Serializable;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.Map;
 
 /**
  * Base class for all supervised learning algorithms.
@@ -42,9 +47,49 @@ abstract public class SupervisedLearning extends IterativeLearning {
      * False by default.
      */
     private boolean batchMode = false;
+    /**
+     * Number of patterns in one mini-batch, used in batch mode. Accumulated weight
+     * changes are applied after each mini-batch. Zero means that the whole training
+     * set is one batch and weights are updated once per epoch.
+     */
+    private int batchSize = 0;
+    /**
+     * Number of patterns whose gradients were accumulated since the last batch weights update
+     */
+    private transient int batchPatternsCount;
     
     private ErrorFunction errorFunction;
+    /**
+     * Weights update rule, plain gradient descent by default
+     */
+    private Optimizer optimizer = new SgdOptimizer();
+    /**
+     * Index of the first input weight of each neuron, [layer][neuron], used to identify
+     * weights in optimizer
+     */
+    private transient int[][] weightsIndexes;
+    /**
+     * Index of the first input weight of each output neuron
+     */
+    private transient int[] outputWeightsIndexes;
+    private transient int weightsCount;
     private int trainingSetSize;
+    /**
+     * Number of patterns learned in current epoch
+     */
+    protected int epochPatternsCount;
+    /**
+     * Start time of current epoch in nanoseconds, used to measure throughput
+     */
+    private long epochStartTime;
+    /**
+     * Number of patterns learned per second in last epoch
+     */
+    private double patternsPerSecond;
+    /**
+     * Output error buffer, reused for every pattern
+     */
+    private transient double[] outputError;
 
     public SupervisedLearning() {
         super();
@@ -82,6 +127,27 @@ abstract public class SupervisedLearning extends IterativeLearning {
 
         this.trainingSetSize = getTrainingSet().size();        
         this.errorFunction = new MeanSquaredError(trainingSetSize);
+
+        // number weights neuron by neuron, so optimizer can keep its state in arrays
+        Layer[] layers = neuralNetwork.getLayers();
+        Map<Neuron, Integer> neuronIndexes = new IdentityHashMap<>();
+        this.weightsIndexes = new int[layers.length][];
+        int weightsCount = 0;
+        for (int l = 0; l < layers.length; l++) {
+            weightsIndexes[l] = new int[layers[l].getNeuronsCount()];
+            for (int i = 0; i < layers[l].getNeuronsCount(); i++) {
+                Neuron neuron = layers[l].getNeuronAt(i);
+                weightsIndexes[l][i] = weightsCount;
+                neuronIndexes.put(neuron, weightsCount);
+                weightsCount += neuron.getInputConnectionsCount();
+            }
+        }
+        this.outputWeightsIndexes = new int[neuralNetwork.getOutputsCount()];
+        for (int i = 0; i < outputWeightsIndexes.length; i++) {
+            outputWeightsIndexes[i] = neuronIndexes.get(neuralNetwork.getOutputNeuronAt(i));
+        }
+        this.weightsCount = weightsCount;
+        this.optimizer.init(weightsCount);
         
         // create stop condition structure based on settings               
         this.stopConditions.add(new MaxErrorStop(this));
@@ -93,6 +159,9 @@ abstract public class SupervisedLearning extends IterativeLearning {
         this.totalNetworkError = 0d;
         this.totalSquaredErrorSum = 0d;  
         this.errorFunction.reset();
+        this.epochPatternsCount = 0;
+        this.batchPatternsCount = 0;
+        this.epochStartTime = System.nanoTime();
     }
     
     @Override
@@ -105,10 +174,34 @@ abstract public class SupervisedLearning extends IterativeLearning {
             this.minErrorChangeIterationsCount = 0;
         }
         
-        // if learning is performed in batch mode, apply accumulated weight changes from this epoch        
-        if (batchMode) {
+        // if learning is performed in batch mode, apply accumulated weight changes from this epoch
+        // (mini-batches, including the last incomplete one, are applied in doLearningEpoch)
+        if (batchMode && (batchSize == 0)) {
             doBatchWeightsUpdate();
+            batchPatternsCount = 0;
         }        
+
+        long epochTime = System.nanoTime() - epochStartTime;
+        this.patternsPerSecond = epochTime > 0 ? epochPatternsCount * 1e9d / epochTime : 0d;
+    }
+
+    @Override
+    protected void saveState(Map<String, Serializable> state) {
+        super.saveState(state);
+        if (!(optimizer instanceof Serializable)) {
+            throw new NeuroException("Optimizer " + optimizer.getClass().getName() + " must be Serializable to be saved in checkpoint!");
+        }
+        state.put("totalNetworkError", totalNetworkError);
+        state.put("minErrorChangeIterationsCount", minErrorChangeIterationsCount);
+        state.put("optimizer", (Serializable) optimizer);
+    }
+
+    @Override
+    protected void restoreState(Map<String, Serializable> state) {
+        super.restoreState(state);
+        this.totalNetworkError = (Double) state.get("totalNetworkError");
+        this.minErrorChangeIterationsCount = (Integer) state.get("minErrorChangeIterationsCount");
+        this.optimizer = (Optimizer) state.get("optimizer");
     }
 
     /**
@@ -119,17 +212,41 @@ abstract public class SupervisedLearning extends IterativeLearning {
      * to stop learning has been reached: network error below some allowed
      * value, or maximum iteration count 
      * 
+     * In batch mode with batch size set, training set is sliced into mini-batches
+     * and accumulated weight changes are applied after each of them.
+     * 
      * @param trainingSet
      *            training set for training network
      */
     @Override
     public void doLearningEpoch(DataSet trainingSet) {
+        boolean miniBatch = batchMode && (batchSize > 0);
+
         // feed network with all elements from training set
         Iterator<DataSetRow> iterator = trainingSet.iterator();
         while (iterator.hasNext() && !isStopped()) {
             DataSetRow dataSetRow = iterator.next();
             // learn current input/output pattern defined by SupervisedTrainingElement
             this.learnPattern(dataSetRow); 
+            this.epochPatternsCount++;
+            if (batchMode) {
+                this.batchPatternsCount++;
+            }
+
+            if (miniBatch && (batchPatternsCount == batchSize)) {
+                doBatchWeightsUpdate();
+                batchPatternsCount = 0;
+            }
+        }
+
+        if (iterator.hasNext()) {
+            setEpochInterrupted();
+        }
+
+        // apply the last, incomplete mini-batch before the epoch error is taken
+        if (miniBatch && (batchPatternsCount > 0)) {
+            doBatchWeightsUpdate();
+            batchPatternsCount = 0;
         }
         this.totalNetworkError = errorFunction.getTotalError();
     }
@@ -150,30 +267,86 @@ abstract public class SupervisedLearning extends IterativeLearning {
         double[] outputError = this.calculateOutputError(desiredOutput, output);
         //this.addToSquaredErrorSum(outputError);
         errorFunction.addOutputError(outputError);
+        if (!batchMode) {
+            optimizer.nextStep();
+        }
         this.updateNetworkWeights(outputError);
     }
     
     /**
-     * This method updates network weights in batch mode - use accumulated weights change stored in Weight.deltaWeight
-     * It is executed after each learning epoch, only if learning is done in batch mode.
+     * This method updates network weights in batch mode - use accumulated gradient stored in Weight.deltaWeight
+     * It is executed after each learning epoch (and after each mini-batch if batch size is set),
+     * only if learning is done in batch mode. Weight changes are calculated by the optimizer
+     * for the gradient averaged over the patterns of the batch.
      */
     protected void doBatchWeightsUpdate() {
+        if (batchPatternsCount == 0) {
+            return;
+        }
+        optimizer.nextStep();
         // iterate layers from output to input
         Layer[] layers = neuralNetwork.getLayers();
         for (int i = neuralNetwork.getLayersCount() - 1; i > 0; i--) {
             // iterate neurons at each layer
-            for (Neuron neuron : layers[i].getNeurons()) {
+            for (int n = 0; n < layers[i].getNeuronsCount(); n++) {
+                Neuron neuron = layers[i].getNeuronAt(n);
+                int weightIndex = weightsIndexes[i][n];
                 // iterate connections/weights for each neuron
-                for (Connection connection : neuron.getInputConnections()) {
-                    // for each connection weight apply accumulated weight change
-                    Weight weight = connection.getWeight();
-                    weight.setValue(weight.getWeightChange());// apply delta weight which is the sum of delta weights in batch mode
+                for (int j = 0; j < neuron.getInputConnectionsCount(); j++) {
+                    // for each connection weight apply change for the accumulated gradient
+                    Weight weight = neuron.getInputConnectionAt(j).getWeight();
+                    double gradient = weight.getWeightChange() / batchPatternsCount;
+                    weight.increaseValue(optimizer.calculateWeightChange(weightIndex + j, gradient, learningRate));
                     weight.setWeightChange(0); // reset deltaWeight
                 }
             }
         }
     }
 
+    /**
+     * Returns index of the first input weight of the specified neuron, as used in optimizer.
+     * Weights of the neuron follow in the order of its input connections. Looks the neuron
+     * up in its layer, use getWeightsIndex(int, int) in per pattern code.
+     *
+     * @param neuron neuron
+     * @return index of the first input weight of the neuron
+     */
+    protected int getWeightsIndex(Neuron neuron) {
+        Layer layer = neuron.getParentLayer();
+        return weightsIndexes[neuralNetwork.indexOf(layer)][layer.indexOf(neuron)];
+    }
+
+    /**
+     * Returns index of the first input weight of the neuron at the specified position,
+     * numbered when learning started
+     *
+     * @param layerIndex  index of the neuron layer
+     * @param neuronIndex index of the neuron in its layer
+     * @return index of the first input weight of the neuron
+     */
+    protected int getWeightsIndex(int layerIndex, int neuronIndex) {
+        return weightsIndexes[layerIndex][neuronIndex];
+    }
+
+    /**
+     * Returns index of the first input weight of the output neuron at the specified position
+     *
+     * @param outputIndex index of the output neuron
+     * @return index of the first input weight of the output neuron
+     */
+    protected int getOutputWeightsIndex(int outputIndex) {
+        return outputWeightsIndexes[outputIndex];
+    }
+
+    /**
+     * Returns number of network weights numbered when learning started
+     *
+     * @return number of network weights
+     */
+    protected int getWeightsCount() {
+        return weightsCount;
+    }
+
     /**
      * Calculates the network error for the current input pattern - diference between
      * desired and actual output
@@ -184,7 +357,9 @@ abstract public class SupervisedLearning extends IterativeLearning {
      *            desired network output
      */
     protected double[] calculateOutputError(double[] desiredOutput, double[] output) {
-        double[] outputError = new double[desiredOutput.length];
+        if ((outputError == null) || (outputError.length != desiredOutput.length)) {
+            outputError = new double[desiredOutput.length];
+        }
         
         for (int i = 0; i < output.length; i++) {
             outputError[i] = desiredOutput[i] - output[i];
@@ -209,6 +384,28 @@ abstract public class SupervisedLearning extends IterativeLearning {
         this.batchMode = batchMode;
     }    
 
+    /**
+     * Returns number of patterns in one mini-batch, zero if weights are updated once per epoch
+     * @return number of patterns in one mini-batch
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets number of patterns in one mini-batch. Used only in batch mode; zero means
+     * that weights are updated once per epoch. Every batch rule updates weights with the
+     * gradient averaged (not summed) over the patterns of the batch, so the same learning
+     * rate gives the same step for any batch size.
+     * @param batchSize number of patterns in one mini-batch
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 0) {
+            throw new IllegalArgumentException("Batch size cannot be negative!");
+        }
+        this.batchSize = batchSize;
+    }
+
     /**
      * Sets allowed network error, which indicates when to stopLearning training
      * 
@@ -237,6 +434,16 @@ abstract public class SupervisedLearning extends IterativeLearning {
         return totalNetworkError;
     }
 
+    /**
+     * Returns learning throughput - number of patterns learned per second in last epoch,
+     * including the time spent for weights update
+     *
+     * @return number of patterns learned per second in last epoch
+     */
+    public double getPatternsPerSecond() {
+        return patternsPerSecond;
+    }
+
     /**
      * Returns total network error in previous learning epoch
      *
@@ -290,6 +497,22 @@ abstract public class SupervisedLearning extends IterativeLearning {
         return minErrorChangeIterationsCount;
     }
 
+    public Optimizer getOptimizer() {
+        return optimizer;
+    }
+
+    /**
+     * Sets weights update rule (optimizer). Must be set before learning starts.
+     *
+     * @param optimizer weights update rule
+     */
+    public void setOptimizer(Optimizer optimizer) {
+        if (optimizer == null) {
+            throw new IllegalArgumentException("Optimizer cannot be null!");
+        }
+        this.optimizer = optimizer;
+    }
+
     public ErrorFunction getErrorFunction() {
         return errorFunction;
     }
@@ -0,0 +1,55 @@
+package me.neuralnetwork.core.learning.optimizer;
+
+import java.io.Serializable;
+
+/**
+ * AdaGrad optimizer. Learning rate of each weight is divided by the square root
+ * of the sum of all its squared gradients, so weights with large or frequent
+ * gradients take smaller steps:
+ *
+ *      cache += gradient^2
+ *      weightChange = learningRate * gradient / (sqrt(cache) + epsilon)
+ */
+public class AdaGradOptimizer implements Optimizer, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Small value which prevents division by zero
+     */
+    private double epsilon = 1e-8d;
+
+    /**
+     * Sum of squared gradients for each weight
+     */
+    private double[] cache;
+
+    public AdaGradOptimizer() {
+    }
+
+    public AdaGradOptimizer(double epsilon) {
+        this.epsilon = epsilon;
+    }
+
+    @Override
+    public void init(int weightsCount) {
+        cache = new double[weightsCount];
+    }
+
+    @Override
+    public void nextStep() {
+    }
+
+    @Override
+    public double calculateWeightChange(int index, double gradient, double learningRate) {
+        cache[index] += gradient * gradient;
+        return learningRate * gradient / (Math.sqrt(cache[index]) + epsilon);
+    }
+
+    public double getEpsilon() {
+        return epsilon;
+    }
+
+    public void setEpsilon(double epsilon) {
+        this.epsilon = epsilon;
+    }
+}
@@ -0,0 +1,93 @@
+package me.neuralnetwork.core.learning.optimizer;
+
+import java.io.Serializable;
+
+/**
+ * Adam optimizer. Keeps exponentially decaying averages of gradients (first moment)
+ * and squared gradients (second moment) for each weight, corrects their bias towards
+ * zero in the first steps, and uses them to scale the step of each weight:
+ *
+ *      m = beta1 * m + (1 - beta1) * gradient
+ *      v = beta2 * v + (1 - beta2) * gradient^2
+ *      weightChange = learningRate * (m / (1 - beta1^t)) / (sqrt(v / (1 - beta2^t)) + epsilon)
+ *
+ * where t is the number of weights updates so far. Learning rate around 0.001 is a good start.
+ */
+public class AdamOptimizer implements Optimizer, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private double beta1 = 0.9d;
+    private double beta2 = 0.999d;
+    /**
+     * Small value which prevents division by zero
+     */
+    private double epsilon = 1e-8d;
+
+    /**
+     * First and second moment estimates for each weight
+     */
+    private double[] firstMoment;
+    private double[] secondMoment;
+
+    /**
+     * Bias corrections of the current step: 1 - beta^t
+     */
+    private double firstCorrection;
+    private double secondCorrection;
+    private int step;
+
+    public AdamOptimizer() {
+    }
+
+    public AdamOptimizer(double beta1, double beta2) {
+        this.beta1 = beta1;
+        this.beta2 = beta2;
+    }
+
+    @Override
+    public void init(int weightsCount) {
+        firstMoment = new double[weightsCount];
+        secondMoment = new double[weightsCount];
+        step = 0;
+    }
+
+    @Override
+    public void nextStep() {
+        step++;
+        firstCorrection = 1d - Math.pow(beta1, step);
+        secondCorrection = 1d - Math.pow(beta2, step);
+    }
+
+    @Override
+    public double calculateWeightChange(int index, double gradient, double learningRate) {
+        double m = beta1 * firstMoment[index] + (1d - beta1) * gradient;
+        double v = beta2 * secondMoment[index] + (1d - beta2) * gradient * gradient;
+        firstMoment[index] = m;
+        secondMoment[index] = v;
+        return learningRate * (m / firstCorrection) / (Math.sqrt(v / secondCorrection) + epsilon);
+    }
+
+    public double getBeta1() {
+        return beta1;
+    }
+
+    public void setBeta1(double beta1) {
+        this.beta1 = beta1;
+    }
+
+    public double getBeta2() {
+        return beta2;
+    }
+
+    public void setBeta2(double beta2) {
+        this.beta2 = beta2;
+    }
+
+    public double getEpsilon() {
+        return epsilon;
+    }
+
+    public void setEpsilon(double epsilon) {
+        this.epsilon = epsilon;
+    }
+}
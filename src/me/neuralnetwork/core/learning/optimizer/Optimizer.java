@@ -0,0 +1,37 @@
+package me.neuralnetwork.core.learning.optimizer;
+
+/**
+ * Interface for the weights update rule used by supervised learning.
+ *
+ * Learning rule calculates the back propagation gradient of each weight and the
+ * optimizer turns it into the weight change. Weights are identified by index, and
+ * per-weight state of the optimizer is kept in primitive arrays indexed the same way.
+ *
+ * Gradient passed to the optimizer is the direction that decreases network error
+ * (neuron error * input), so the returned weight change is added to the weight value.
+ */
+public interface Optimizer {
+    /**
+     * Initialises optimizer state for the specified number of weights.
+     * Called when learning starts.
+     *
+     * @param weightsCount number of weights
+     */
+    public void init(int weightsCount);
+
+    /**
+     * Starts next weights update. Called once before the changes of all weights
+     * are calculated - after each pattern in online mode, after each batch in batch mode.
+     */
+    public void nextStep();
+
+    /**
+     * Calculates weight change for the weight at the specified index
+     *
+     * @param index        weight index
+     * @param gradient     error decreasing gradient of the weight
+     * @param learningRate learning rate
+     * @return weight change to add to the weight value
+     */
+    public double calculateWeightChange(int index, double gradient, double learningRate);
+}
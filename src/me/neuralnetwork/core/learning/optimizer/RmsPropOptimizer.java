@@ -0,0 +1,66 @@
+package me.neuralnetwork.core.learning.optimizer;
+
+import java.io.Serializable;
+
+/**
+ * RMSProp optimizer. Like AdaGrad, but squared gradients are averaged with
+ * exponential decay, so step sizes do not shrink to zero during long learning:
+ *
+ *      cache = decayRate * cache + (1 - decayRate) * gradient^2
+ *      weightChange = learningRate * gradient / (sqrt(cache) + epsilon)
+ */
+public class RmsPropOptimizer implements Optimizer, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Decay rate of the squared gradients average
+     */
+    private double decayRate = 0.9d;
+    /**
+     * Small value which prevents division by zero
+     */
+    private double epsilon = 1e-8d;
+
+    /**
+     * Moving average of squared gradients for each weight
+     */
+    private double[] cache;
+
+    public RmsPropOptimizer() {
+    }
+
+    public RmsPropOptimizer(double decayRate) {
+        this.decayRate = decayRate;
+    }
+
+    @Override
+    public void init(int weightsCount) {
+        cache = new double[weightsCount];
+    }
+
+    @Override
+    public void nextStep() {
+    }
+
+    @Override
+    public double calculateWeightChange(int index, double gradient, double learningRate) {
+        cache[index] = decayRate * cache[index] + (1d - decayRate) * gradient * gradient;
+        return learningRate * gradient / (Math.sqrt(cache[index]) + epsilon);
+    }
+
+    public double getDecayRate() {
+        return decayRate;
+    }
+
+    public void setDecayRate(double decayRate) {
+        this.decayRate = decayRate;
+    }
+
+    public double getEpsilon() {
+        return epsilon;
+    }
+
+    public void setEpsilon(double epsilon) {
+        this.epsilon = epsilon;
+    }
+}
@@ -0,0 +1,24 @@
+package me.neuralnetwork.core.learning.optimizer;
+
+import java.io.Serializable;
+
+/**
+ * Plain gradient descent: weight change is the gradient multiplied by learning rate.
+ * It has no state and is the default optimizer of supervised learning.
+ */
+public class SgdOptimizer implements Optimizer, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public void init(int weightsCount) {
+    }
+
+    @Override
+    public void nextStep() {
+    }
+
+    @Override
+    public double calculateWeightChange(int index, double gradient, double learningRate) {
+        return learningRate * gradient;
+    }
+}
@@ -41,9 +41,10 @@ public class Gaussian extends TransferFunction {
 
         @Override
 	public double getOutput(double net) {
-            output = Math.exp(-Math.pow(net, 2) / (2*Math.pow(sigma, 2)));
+            double out = Math.exp(-Math.pow(net, 2) / (2*Math.pow(sigma, 2)));
               //  output = Math.exp(-0.5d * Math.pow(net, 2));
-            return output;
+            output = out;
+            return out;
 	}
 	
 	@Override
@@ -52,6 +53,11 @@ public class Gaussian extends TransferFunction {
         return output * ( -net / (sigma*sigma) );
 	}	
 
+	@Override
+	public double getDerivative(double net, double output) {
+        return output * ( -net / (sigma*sigma) );
+	}
+
 	/**
 	 * Returns the sigma parametar of this function
 	 * @return  sigma parametar of this function 
@@ -0,0 +1,35 @@
+package me.neuralnetwork.core.transfer;
+
+import me.neuralnetwork.core.util.Properties;
+
+/**
+ * <pre>
+ * Tanh neuron transfer function approximated by an interpolated lookup table.
+ *
+ * output = tanh(slope*input/2) ~ ( e^(slope*input)-1) / ( e^(slope*input)+1 )
+ * </pre>
+ *
+ * Max absolute error against Tanh is 1.5e-6. Derivatives are the same as in Tanh,
+ * calculated from the output.
+ */
+public class LookupTanh extends Tanh {
+
+    public LookupTanh() {
+    }
+
+    public LookupTanh(double slope) {
+        super(slope);
+    }
+
+    public LookupTanh(Properties properties) {
+        super(properties);
+    }
+
+    @Override
+    public double getOutput(double net) {
+        double out = TanhApproximation.lookup(0.5d * getSlope() * net);
+        this.output = out;
+
+        return out;
+    }
+}
@@ -76,6 +76,24 @@ public class Ramp extends TransferFunction {
             return (double) (slope * net);
     }
 
+    /**
+     * Returns the slope parameter of this function
+     *
+     * @return slope parameter of this function
+     */
+    public double getSlope() {
+        return slope;
+    }
+
+    /**
+     * Sets the slope parameter for this function
+     *
+     * @param slope value for the slope parameter
+     */
+    public void setSlope(double slope) {
+        this.slope = slope;
+    }
+
     /**
      * Returns threshold value for the low output level
      *
@@ -77,9 +77,10 @@ public class Sigmoid extends TransferFunction {
         }
 
         double den = 1d + Math.exp(-this.slope * net);
-        this.output = (1d / den);
+        double out = 1d / den;
+        this.output = out;
 
-        return this.output;
+        return out;
     }
 
     @Override
@@ -88,4 +89,14 @@ public class Sigmoid extends TransferFunction {
         // +0.1 is fix for flat spot see http://www.heatonresearch.com/wiki/Flat_Spot
         return this.slope * this.output * (1d - this.output) + 0.1;
     }
+
+    @Override
+    public double getDerivative(double net, double output) {
+        return this.slope * output * (1d - output) + 0.1;
+    }
+
+    @Override
+    public double getExactDerivative(double net, double output) {
+        return this.slope * output * (1d - output);
+    }
 }
@@ -50,7 +50,7 @@ public class Tanh extends TransferFunction {
     }
 
     @Override
-    final public double getOutput(double net) {
+    public double getOutput(double net) {
         // conditional logic helps to avoid NaN
         if (net > 100) {
             return 1.0;
@@ -59,9 +59,10 @@ public class Tanh extends TransferFunction {
         }
 
         double E_x = Math.exp(this.slope * net);
-        this.output = (E_x - 1d) / (E_x + 1d);
+        double out = (E_x - 1d) / (E_x + 1d);
+        this.output = out;
 
-        return this.output;
+        return out;
     }
 
     @Override
@@ -69,6 +70,11 @@ public class Tanh extends TransferFunction {
         return (1d - output * output);
     }
 
+    @Override
+    final public double getDerivative(double net, double output) {
+        return (1d - output * output);
+    }
+
     /**
      * Returns the slope parametar of this function
      *
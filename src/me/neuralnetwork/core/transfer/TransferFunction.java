@@ -2,6 +2,11 @@ package me.neuralnetwork.core.transfer;
 
 /**
  * Abstract base class for all neuron tranfer functions.
+ *
+ * getOutput() only writes the cached output, it never reads it, so a transfer function
+ * can be shared by threads which only calculate outputs. getDerivative(net) may depend
+ * on the output cached by the last getOutput() call; code which shares the function
+ * between threads should use getDerivative(net, output) instead.
  */
 abstract public class TransferFunction {
 
@@ -27,4 +32,28 @@ abstract public class TransferFunction {
         return 1d;
     }
 
+    /**
+     * Returns the first derivative of this function for the specified net input
+     * and output, without using the cached output value. Functions whose derivative
+     * depends on the cached output should override this method.
+     *
+     * @param net    net input
+     * @param output output of this function for the specified net input
+     */
+    public double getDerivative(double net, double output) {
+        return getDerivative(net);
+    }
+
+    /**
+     * Returns the exact first derivative of this function, without corrections
+     * which help back propagation (like the flat spot fix of Sigmoid). Used by
+     * learning rules which need the true error gradient.
+     *
+     * @param net    net input
+     * @param output output of this function for the specified net input
+     */
+    public double getExactDerivative(double net, double output) {
+        return getDerivative(net, output);
+    }
+
 }
@@ -4,6 +4,9 @@ import me.neuralnetwork.core.transfer.*;
 
 /**
  * Contains transfer functions types and labels.
+ *
+ * Lookup and rational types are fast approximations of Sigmoid and Tanh, see
+ * LookupSigmoid, RationalSigmoid, LookupTanh and RationalTanh for their errors.
  */
 public enum TransferFunctionType {
     LINEAR("Linear"),
@@ -15,7 +18,11 @@ public enum TransferFunctionType {
     TRAPEZOID("Trapezoid"),
     SGN("Sgn"),
     SIN("Sin"),
-    LOG("Log");
+    LOG("Log"),
+    SIGMOID_LOOKUP("Sigmoid (lookup table)"),
+    SIGMOID_RATIONAL("Sigmoid (rational)"),
+    TANH_LOOKUP("Tanh (lookup table)"),
+    TANH_RATIONAL("Tanh (rational)");
 
     private String typeLabel;
 
@@ -49,6 +56,14 @@ public enum TransferFunctionType {
                 return Sin.class;
             case LOG:
                 return Log.class;
+            case SIGMOID_LOOKUP:
+                return LookupSigmoid.class;
+            case SIGMOID_RATIONAL:
+                return RationalSigmoid.class;
+            case TANH_LOOKUP:
+                return LookupTanh.class;
+            case TANH_RATIONAL:
+                return RationalTanh.class;
         } // switch
 
         return null;
@@ -2,6 +2,8 @@ package me.neuralnetwork.perceptron;
 
 import me.neuralnetwork.core.Layer;
 import me.neuralnetwork.core.NeuralNetwork;
+import me.neuralnetwork.core.flat.FlatNetwork;
+import me.neuralnetwork.core.flat.FloatFlatNetwork;
 import me.neuralnetwork.core.input.WeightedSum;
 import me.neuralnetwork.core.neuron.BiasNeuron;
 import me.neuralnetwork.core.neuron.InputNeuron;
@@ -141,6 +143,26 @@ public class MultiLayerPerceptron extends NeuralNetwork<BackPropagation> {
         this.randomizeWeights(new NguyenWidrowRandomizer(-0.7, 0.7));
     }
 
+    /**
+     * Compiles this network into flat form with its current weights, for fast calculation.
+     * Compiled network does not support input to output connections.
+     *
+     * @return compiled network
+     */
+    public FlatNetwork compile() {
+        return FlatNetwork.compile(this);
+    }
+
+    /**
+     * Compiles this network into single precision flat form, with its current weights
+     * rounded to float. Compiled network does not support input to output connections.
+     *
+     * @return compiled single precision network
+     */
+    public FloatFlatNetwork compileFloat() {
+        return FloatFlatNetwork.compile(this);
+    }
+
     public void connectInputsToOutputs() {
         // connect first and last layer
         ConnectionFactory.fullConnect(getLayerAt(0), getLayerAt(getLayersCount() - 1), false);
@@ -0,0 +1,123 @@
+package me.neuralnetwork.perceptron.benchmark;
+
+import me.neuralnetwork.core.data.DataSet;
+import me.neuralnetwork.core.flat.FlatNetwork;
+import me.neuralnetwork.perceptron.MultiLayerPerceptron;
+import me.neuralnetwork.perceptron.learning.BackPropagation;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Checks that calculation and training do not allocate heap memory per pattern, by
+ * counting bytes allocated by the current thread (com.sun.management.ThreadMXBean):
+ *
+ *      NeuralNetwork.calculate(double[], double[]) and FlatNetwork.calculate(double[], double[])
+ *      allocate nothing
+ *      BackPropagation epoch allocates the same number of bytes for 100 and for 1000
+ *      patterns, so only per-epoch objects (like the data set iterator) are created
+ *
+ * Usage: AllocationCheck
+ */
+public class AllocationCheck {
+    private static final int WARM_UP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final int CALLS_COUNT = 10000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        if (!THREADS.isThreadAllocatedMemorySupported()) {
+            System.out.println("Thread allocated memory is not supported by this JVM, nothing checked");
+            return;
+        }
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        final MultiLayerPerceptron perceptron = new MultiLayerPerceptron(13, 13, 2);
+        perceptron.randomizeWeights(new Random(1));
+        final FlatNetwork flatNetwork = perceptron.compile();
+        final double[] input = new double[13];
+        final double[] output = new double[2];
+
+        check("NeuralNetwork.calculate()", 0L, measure(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < CALLS_COUNT; i++) {
+                    input[i % input.length] = i * 1e-4d;
+                    perceptron.calculate(input, output);
+                }
+            }
+        }));
+
+        check("FlatNetwork.calculate()", 0L, measure(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < CALLS_COUNT; i++) {
+                    input[i % input.length] = i * 1e-4d;
+                    flatNetwork.calculate(input, output);
+                }
+            }
+        }));
+
+        long smallEpoch = measure(epoch(perceptron, dataSet(100)));
+        long largeEpoch = measure(epoch(perceptron, dataSet(1000)));
+        check("BackPropagation epoch (1000 vs 100 patterns)", smallEpoch, largeEpoch);
+        System.out.println("OK");
+    }
+
+    /**
+     * Returns task which learns one BackPropagation epoch of the data set
+     */
+    private static Runnable epoch(final MultiLayerPerceptron perceptron, final DataSet dataSet) {
+        final BackPropagation backPropagation = new BackPropagation();
+        backPropagation.setNeuralNetwork(perceptron);
+        backPropagation.setMaxIterations(1);
+        return new Runnable() {
+            @Override
+            public void run() {
+                backPropagation.learn(dataSet);
+            }
+        };
+    }
+
+    private static DataSet dataSet(int rowsCount) {
+        Random random = new Random(rowsCount);
+        DataSet dataSet = new DataSet(13, 2);
+        for (int r = 0; r < rowsCount; r++) {
+            double[] input = new double[13];
+            for (int i = 0; i < input.length; i++) {
+                input[i] = random.nextDouble();
+            }
+            dataSet.addRow(input, new double[]{random.nextDouble(), random.nextDouble()});
+        }
+        return dataSet;
+    }
+
+    /**
+     * Runs the task until it is compiled, then returns the least number of bytes allocated
+     * by one of the following runs (occasional JIT recompilation may allocate in between)
+     */
+    private static long measure(Runnable task) {
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            task.run();
+        }
+
+        long allocatedBytes = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long before = THREADS.getThreadAllocatedBytes(threadId);
+            task.run();
+            long after = THREADS.getThreadAllocatedBytes(threadId);
+            allocatedBytes = Math.min(allocatedBytes, after - before);
+        }
+        return allocatedBytes;
+    }
+
+    private static void check(String name, long expectedBytes, long allocatedBytes) {
+        if (allocatedBytes != expectedBytes) {
+            throw new IllegalStateException(name + ": allocated " + allocatedBytes + " bytes, expected " + expectedBytes);
+        }
+        System.out.println(name + ": " + allocatedBytes + " bytes");
+    }
+}
@@ -0,0 +1,115 @@
+package me.neuralnetwork.perceptron.benchmark;
+
+import me.neuralnetwork.core.data.DataSetRow;
+import me.neuralnetwork.core.data.FlatDataSet;
+import me.neuralnetwork.core.data.FloatDataSet;
+import me.neuralnetwork.core.flat.FlatNetwork;
+import me.neuralnetwork.core.flat.FloatFlatNetwork;
+import me.neuralnetwork.core.flat.InferenceSession;
+import me.neuralnetwork.perceptron.MultiLayerPerceptron;
+
+import java.util.Random;
+
+/**
+ * Compares outputs and throughput of double (FlatNetwork) and float (FloatFlatNetwork)
+ * inference on MultiLayerPerceptron networks with random weights and inputs.
+ *
+ * Usage: FloatPrecisionBenchmark [rows count]
+ */
+public class FloatPrecisionBenchmark {
+    private static final int[][] TOPOLOGIES = {
+            {16, 32, 4},
+            {64, 128, 64, 10},
+            {256, 512, 256, 10}
+    };
+    private static final int PASSES = 5;
+
+    public static void main(String[] args) {
+        int rowsCount = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+
+        System.out.printf("%-18s %10s %10s %12s %12s %8s%n",
+                "topology", "max diff", "mean diff", "double rows/s", "float rows/s", "speedup");
+        for (int[] topology : TOPOLOGIES) {
+            run(topology, rowsCount);
+        }
+    }
+
+    private static void run(int[] topology, int rowsCount) {
+        Random random = new Random(1);
+        MultiLayerPerceptron perceptron = new MultiLayerPerceptron(topology);
+        FlatNetwork doubleNetwork = perceptron.compile();
+
+        // weights scaled by fan-in, so wide layers do not saturate and differences are visible
+        double[] weights = doubleNetwork.getWeights();
+        for (int l = 1; l < doubleNetwork.getLayersCount(); l++) {
+            double scale = 2d / Math.sqrt(doubleNetwork.getRowLength(l));
+            int end = l + 1 < doubleNetwork.getLayersCount() ? doubleNetwork.getWeightIndex(l + 1) : weights.length;
+            for (int i = doubleNetwork.getWeightIndex(l); i < end; i++) {
+                weights[i] = (random.nextDouble() * 2d - 1d) * scale;
+            }
+        }
+        doubleNetwork.copyWeightsTo(perceptron);
+        FloatFlatNetwork floatNetwork = perceptron.compileFloat();
+
+        // the same rows in both data sets, so float inputs are the rounded double inputs
+        FlatDataSet doubleRows = new FlatDataSet(topology[0], 0, rowsCount);
+        for (int r = 0; r < rowsCount; r++) {
+            double[] input = new double[topology[0]];
+            for (int i = 0; i < input.length; i++) {
+                input[i] = random.nextDouble() * 2d - 1d;
+            }
+            doubleRows.addRow(new DataSetRow(input));
+        }
+        FloatDataSet floatRows = new FloatDataSet(doubleRows);
+
+        double maxDiff = 0d;
+        double diffSum = 0d;
+        InferenceSession doubleSession = doubleNetwork.newSession();
+        FloatFlatNetwork.Session floatSession = floatNetwork.newSession();
+        double[] doubleInput = new double[topology[0]];
+        float[] floatInput = new float[topology[0]];
+        for (int r = 0; r < rowsCount; r++) {
+            doubleRows.readRow(r, doubleInput, null);
+            floatRows.readRow(r, floatInput, null);
+            double[] doubleOutput = doubleSession.calculate(doubleInput);
+            float[] floatOutput = floatSession.calculate(floatInput);
+            for (int k = 0; k < doubleOutput.length; k++) {
+                double diff = Math.abs(doubleOutput[k] - floatOutput[k]);
+                maxDiff = Math.max(maxDiff, diff);
+                diffSum += diff;
+            }
+        }
+
+        long doubleTime = Long.MAX_VALUE;
+        long floatTime = Long.MAX_VALUE;
+        for (int pass = 0; pass < PASSES; pass++) {
+            long start = System.nanoTime();
+            for (int r = 0; r < rowsCount; r++) {
+                doubleRows.readRow(r, doubleInput, null);
+                doubleSession.calculate(doubleInput);
+            }
+            doubleTime = Math.min(doubleTime, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int r = 0; r < rowsCount; r++) {
+                floatRows.readRow(r, floatInput, null);
+                floatSession.calculate(floatInput);
+            }
+            floatTime = Math.min(floatTime, System.nanoTime() - start);
+        }
+
+        double doubleRate = rowsCount * 1e9d / doubleTime;
+        double floatRate = rowsCount * 1e9d / floatTime;
+        System.out.printf("%-18s %10.2e %10.2e %12.0f %12.0f %8.2f%n",
+                toString(topology), maxDiff, diffSum / ((double) rowsCount * doubleNetwork.getOutputsCount()),
+                doubleRate, floatRate, floatRate / doubleRate);
+    }
+
+    private static String toString(int[] topology) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < topology.length; i++) {
+            builder.append(i > 0 ? "-" : "").append(topology[i]);
+        }
+        return builder.toString();
+    }
+}
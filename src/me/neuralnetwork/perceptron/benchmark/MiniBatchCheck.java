@@ -0,0 +1,64 @@
+package me.neuralnetwork.perceptron.benchmark;
+
+import me.neuralnetwork.core.data.DataSet;
+import me.neuralnetwork.core.learning.SupervisedLearning;
+import me.neuralnetwork.core.learning.optimizer.AdamOptimizer;
+import me.neuralnetwork.perceptron.MultiLayerPerceptron;
+import me.neuralnetwork.perceptron.learning.BackPropagation;
+import me.neuralnetwork.perceptron.learning.MatrixBackPropagation;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks that batch learning over the whole epoch and learning with a single mini-batch
+ * as large as the training set give the same weights: each epoch must update weights
+ * (and advance the optimizer) exactly once in both modes.
+ *
+ * Usage: MiniBatchCheck [epochs count]
+ */
+public class MiniBatchCheck {
+
+    public static void main(String[] args) {
+        int epochsCount = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+
+        DataSet xor = new DataSet(2, 1);
+        xor.addRow(new double[]{0, 0}, new double[]{0});
+        xor.addRow(new double[]{0, 1}, new double[]{1});
+        xor.addRow(new double[]{1, 0}, new double[]{1});
+        xor.addRow(new double[]{1, 1}, new double[]{0});
+
+        BackPropagation fullBatch = new BackPropagation();
+        fullBatch.setBatchMode(true);
+        BackPropagation miniBatch = new BackPropagation();
+        miniBatch.setBatchMode(true);
+        miniBatch.setBatchSize(xor.size());
+        check("BackPropagation", fullBatch, miniBatch, xor, epochsCount);
+
+        check("MatrixBackPropagation", new MatrixBackPropagation(0), new MatrixBackPropagation(xor.size()),
+                xor, epochsCount);
+        System.out.println("OK");
+    }
+
+    private static void check(String name, SupervisedLearning fullBatch, SupervisedLearning miniBatch,
+                              DataSet dataSet, int epochsCount) {
+        Double[] fullBatchWeights = learn(fullBatch, dataSet, epochsCount);
+        Double[] miniBatchWeights = learn(miniBatch, dataSet, epochsCount);
+        if (!Arrays.equals(fullBatchWeights, miniBatchWeights)) {
+            throw new IllegalStateException(name + ": full batch weights " + Arrays.toString(fullBatchWeights)
+                    + " differ from mini-batch weights " + Arrays.toString(miniBatchWeights));
+        }
+        System.out.println(name + ": same weights after " + epochsCount + " epochs");
+    }
+
+    private static Double[] learn(SupervisedLearning learningRule, DataSet dataSet, int epochsCount) {
+        MultiLayerPerceptron perceptron = new MultiLayerPerceptron(2, 3, 1);
+        perceptron.randomizeWeights(new Random(1));
+        learningRule.setOptimizer(new AdamOptimizer());
+        learningRule.setLearningRate(0.01d);
+        learningRule.setMaxIterations(epochsCount);
+        learningRule.setNeuralNetwork(perceptron);
+        learningRule.learn(dataSet);
+        return perceptron.getWeights();
+    }
+}
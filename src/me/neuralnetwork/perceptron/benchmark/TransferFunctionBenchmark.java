@@ -0,0 +1,140 @@
+package me.neuralnetwork.perceptron.benchmark;
+
+import me.neuralnetwork.core.flat.FlatNetwork;
+import me.neuralnetwork.core.flat.InferenceSession;
+import me.neuralnetwork.core.transfer.LookupSigmoid;
+import me.neuralnetwork.core.transfer.LookupTanh;
+import me.neuralnetwork.core.transfer.RationalSigmoid;
+import me.neuralnetwork.core.transfer.RationalTanh;
+import me.neuralnetwork.core.transfer.Sigmoid;
+import me.neuralnetwork.core.transfer.Tanh;
+import me.neuralnetwork.core.transfer.TransferFunction;
+import me.neuralnetwork.core.util.TransferFunctionType;
+import me.neuralnetwork.perceptron.MultiLayerPerceptron;
+
+import java.util.Random;
+
+/**
+ * Compares lookup table and rational approximations of Sigmoid and Tanh with the exact
+ * functions: max absolute error over [-20, 20], function evaluations per second, and
+ * inference throughput of a MultiLayerPerceptron using each transfer function type.
+ *
+ * Usage: TransferFunctionBenchmark [evaluations count]
+ */
+public class TransferFunctionBenchmark {
+    private static final int[] TOPOLOGY = {256, 512, 256, 10};
+    private static final int PASSES = 5;
+    private static final int ROWS_COUNT = 2000;
+
+    /**
+     * Sum of the benchmarked outputs, so the JIT cannot drop the calculation
+     */
+    private static double checksum;
+
+    public static void main(String[] args) {
+        int evaluationsCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+        double[] nets = new double[evaluationsCount];
+        Random random = new Random(1);
+        for (int i = 0; i < nets.length; i++) {
+            nets[i] = random.nextGaussian() * 4d;
+        }
+
+        System.out.printf("%-18s %10s %14s %8s%n", "function", "max error", "evaluations/s", "speedup");
+        double sigmoidRate = run("Sigmoid", new Sigmoid(), new Sigmoid(), nets, 0d);
+        run("LookupSigmoid", new LookupSigmoid(), new Sigmoid(), nets, sigmoidRate);
+        run("RationalSigmoid", new RationalSigmoid(), new Sigmoid(), nets, sigmoidRate);
+        double tanhRate = run("Tanh", new Tanh(), new Tanh(), nets, 0d);
+        run("LookupTanh", new LookupTanh(), new Tanh(), nets, tanhRate);
+        run("RationalTanh", new RationalTanh(), new Tanh(), nets, tanhRate);
+
+        System.out.println();
+        System.out.printf("%-18s %10s %14s %8s%n", "network " + TOPOLOGY[0] + "-" + TOPOLOGY[1] + "-" + TOPOLOGY[2]
+                + "-" + TOPOLOGY[3], "max diff", "rows/s", "speedup");
+        double sigmoidNetworkRate = runNetwork(TransferFunctionType.SIGMOID, TransferFunctionType.SIGMOID, 0d);
+        runNetwork(TransferFunctionType.SIGMOID_LOOKUP, TransferFunctionType.SIGMOID, sigmoidNetworkRate);
+        runNetwork(TransferFunctionType.SIGMOID_RATIONAL, TransferFunctionType.SIGMOID, sigmoidNetworkRate);
+        double tanhNetworkRate = runNetwork(TransferFunctionType.TANH, TransferFunctionType.TANH, 0d);
+        runNetwork(TransferFunctionType.TANH_LOOKUP, TransferFunctionType.TANH, tanhNetworkRate);
+        runNetwork(TransferFunctionType.TANH_RATIONAL, TransferFunctionType.TANH, tanhNetworkRate);
+    }
+
+    /**
+     * Measures error and evaluation rate of the function, returns evaluations per second
+     */
+    private static double run(String name, TransferFunction function, TransferFunction exact, double[] nets,
+                              double exactRate) {
+        double maxError = 0d;
+        for (int i = -2000000; i <= 2000000; i++) {
+            double net = i * 1e-5d;
+            maxError = Math.max(maxError, Math.abs(function.getOutput(net) - exact.getOutput(net)));
+        }
+
+        long time = Long.MAX_VALUE;
+        for (int pass = 0; pass < PASSES; pass++) {
+            long start = System.nanoTime();
+            for (double net : nets) {
+                checksum += function.getOutput(net);
+            }
+            time = Math.min(time, System.nanoTime() - start);
+        }
+
+        double rate = nets.length * 1e9d / time;
+        System.out.printf("%-18s %10.2e %14.0f %8s%n", name, maxError, rate,
+                exactRate > 0d ? String.format("%.2f", rate / exactRate) : "");
+        return rate;
+    }
+
+    /**
+     * Measures output difference and inference rate of a network with the specified transfer
+     * function type against the same network with the exact type, returns rows per second
+     */
+    private static double runNetwork(TransferFunctionType type, TransferFunctionType exactType, double exactRate) {
+        FlatNetwork network = new MultiLayerPerceptron(type, TOPOLOGY).compile();
+        FlatNetwork exactNetwork = new MultiLayerPerceptron(exactType, TOPOLOGY).compile();
+
+        // the same weights scaled by fan-in, so wide layers do not saturate
+        Random random = new Random(1);
+        double[] weights = network.getWeights();
+        for (int l = 1; l < network.getLayersCount(); l++) {
+            double scale = 2d / Math.sqrt(network.getRowLength(l));
+            int end = l + 1 < network.getLayersCount() ? network.getWeightIndex(l + 1) : weights.length;
+            for (int i = network.getWeightIndex(l); i < end; i++) {
+                weights[i] = (random.nextDouble() * 2d - 1d) * scale;
+            }
+        }
+        exactNetwork.setWeights(weights.clone());
+
+        double[][] rows = new double[ROWS_COUNT][TOPOLOGY[0]];
+        for (double[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = random.nextDouble() * 2d - 1d;
+            }
+        }
+
+        InferenceSession session = network.newSession();
+        InferenceSession exactSession = exactNetwork.newSession();
+        double maxDiff = 0d;
+        for (double[] row : rows) {
+            double[] output = session.calculate(row);
+            double[] exactOutput = exactSession.calculate(row);
+            for (int k = 0; k < output.length; k++) {
+                maxDiff = Math.max(maxDiff, Math.abs(output[k] - exactOutput[k]));
+            }
+        }
+
+        long time = Long.MAX_VALUE;
+        for (int pass = 0; pass < PASSES; pass++) {
+            long start = System.nanoTime();
+            for (double[] row : rows) {
+                session.calculate(row);
+            }
+            time = Math.min(time, System.nanoTime() - start);
+        }
+
+        double rate = ROWS_COUNT * 1e9d / time;
+        System.out.printf("%-18s %10.2e %14.0f %8s%n", type.name(), maxDiff, rate,
+                exactRate > 0d ? String.format("%.2f", rate / exactRate) : "");
+        return rate;
+    }
+}
@@ -2,6 +2,7 @@ package me.neuralnetwork.perceptron.learning;
 
 import me.neuralnetwork.core.*;
 import me.neuralnetwork.core.learning.SupervisedLearning;
+import me.neuralnetwork.core.learning.optimizer.Optimizer;
 import me.neuralnetwork.core.transfer.TransferFunction;
 
 /**
@@ -18,14 +19,15 @@ public class BackPropagation extends SupervisedLearning {
     /**
      * This method implements weights update procedure for the output neurons
      * Calculates delta/error using formula
-     * delta = learningRate * f'(net) * (desiredOutput - actualOutput) where
+     * delta = f'(net) * (desiredOutput - actualOutput) where
      *      f'(net) - derivative of input function in a neuron (weighted sum of input values)
      *      if we use sigmoid as activation function:
      *          1/1+e^-slope*net
      *          where slope is pre-defined constant then its derivative is simple
      *          f'(net) = slope * f(net)(1 - f(net))
      * and calls updateNeuronWeights to update neuron's weights
-     * for each output neuron
+     * for each output neuron. Learning rate is not part of the delta, it is applied
+     * only by the optimizer.
      *
      * @param outputError
      *            error vector for output neurons
@@ -35,11 +37,11 @@ public class BackPropagation extends SupervisedLearning {
             if (outputError[i] == 0) {
                 continue;
             }
-            Neuron outputNeuron = neuralNetwork.getOutputNeurons()[i];
+            Neuron outputNeuron = neuralNetwork.getOutputNeuronAt(i);
             TransferFunction tf = outputNeuron.getTransferFunction();
-            double delta = learningRate * tf.getDerivative(outputNeuron.getNetInput()) * outputError[i];
+            double delta = tf.getDerivative(outputNeuron.getNetInput(), outputNeuron.getOutput()) * outputError[i];
             outputNeuron.setError(delta);
-            updateNeuronWeights(outputNeuron);
+            updateNeuronWeights(outputNeuron, getOutputWeightsIndex(i));
         }
     }
 
@@ -49,10 +51,11 @@ public class BackPropagation extends SupervisedLearning {
     protected void calculateErrorAndUpdateHiddenNeurons() {
         for (int i = neuralNetwork.getLayersCount() - 2; i > 0; i--) {
             Layer layer = neuralNetwork.getLayerAt(i);
-            for (Neuron hidden : layer.getNeurons()) {
+            for (int j = 0; j < layer.getNeuronsCount(); j++) {
+                Neuron hidden = layer.getNeuronAt(j);
                 double hiddenDelta = calculateHiddenNeuronError(hidden);
                 hidden.setError(hiddenDelta);
-                updateNeuronWeights(hidden);
+                updateNeuronWeights(hidden, getWeightsIndex(i, j));
             }
         }
     }
@@ -66,13 +69,14 @@ public class BackPropagation extends SupervisedLearning {
      */
     protected double calculateHiddenNeuronError(Neuron neuron) {
         double deltaSum = 0;
-        for (Connection connection : neuron.getOutConnections()) {
+        for (int i = 0; i < neuron.getOutConnectionsCount(); i++) {
+            Connection connection = neuron.getOutConnectionAt(i);
             double delta = connection.getToNeuron().getError() * connection.getWeight().getValue();
             deltaSum += delta;
         }
 
         TransferFunction tf = neuron.getTransferFunction();
-        double derivative = tf.getDerivative(neuron.getNetInput());
+        double derivative = tf.getDerivative(neuron.getNetInput(), neuron.getOutput());
         return derivative * deltaSum;
     }
 
@@ -82,6 +86,7 @@ public class BackPropagation extends SupervisedLearning {
      * using formula
      *      deltaWeight = learningRate * neuronError * input
      *
+     * (or the optimizer's rule for the gradient neuronError * input, see SupervisedLearning.setOptimizer)
      * where neuronError is calculated in previous steps by using gradient descent
      * and backprop.
      *
@@ -93,23 +98,37 @@ public class BackPropagation extends SupervisedLearning {
      *
      */
     public void updateNeuronWeights(Neuron neuron) {
+        updateNeuronWeights(neuron, getWeightsIndex(neuron));
+    }
+
+    /**
+     * Updates weights of the single neuron whose first input weight has the specified
+     * optimizer index, see updateNeuronWeights(Neuron)
+     *
+     * @param neuron      neuron to update weights
+     * @param weightIndex index of the first input weight of the neuron
+     */
+    protected void updateNeuronWeights(Neuron neuron, int weightIndex) {
         // tanh can be used to minimise the impact of big error values, which can cause network instability
         // suggested at https://sourceforge.net/tracker/?func=detail&atid=1107579&aid=3130561&group_id=238532
         // double neuronError = Math.tanh(neuron.getError());
-        for (Connection connection : neuron.getInputConnections()) {
+        Optimizer optimizer = getOptimizer();
+        for (int i = 0; i < neuron.getInputConnectionsCount(); i++) {
+            Connection connection = neuron.getInputConnectionAt(i);
             double input = connection.getInput();
-            double weightChange = learningRate * neuron.getError() * input;
+            double gradient = neuron.getError() * input;
             Weight weight = connection.getWeight();
             // if the learning is in online mode (not batch) apply the weight change immediately
             if (!isInBatchMode()) {
+                double weightChange = optimizer.calculateWeightChange(weightIndex + i, gradient, learningRate);
                 weight.setWeightChange(weightChange);
                 // weight change can be negative
                 // so that's ok to call increase
                 weight.increaseValue(weightChange);
             } else {
-            // otherwise its in batch mode, so sum the weight changes and apply them later,
-            // after the current epoch (see SupervisedLearning.doLearningEpoch method)
-                weight.increaseWeightChange(weightChange);
+            // otherwise its in batch mode, so sum the gradients and apply their average later,
+            // after the current batch (see SupervisedLearning.doBatchWeightsUpdate method)
+                weight.increaseWeightChange(gradient);
             }
         }
     }
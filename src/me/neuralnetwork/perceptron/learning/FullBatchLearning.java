@@ -0,0 +1,159 @@
+package me.neuralnetwork.perceptron.learning;
+
+import me.neuralnetwork.core.data.DataSet;
+import me.neuralnetwork.core.data.DataSetRow;
+import me.neuralnetwork.core.flat.BatchPropagator;
+import me.neuralnetwork.core.flat.FlatNetwork;
+import me.neuralnetwork.core.flat.InferenceSession;
+import me.neuralnetwork.core.learning.SupervisedLearning;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Base class for learning rules which treat network weights as one parameter vector
+ * and use the full-batch error gradient, like quasi-Newton and conjugate gradient methods.
+ *
+ * Weights vector has the order of NeuralNetwork.getWeights(). Error and gradient for any
+ * weights vector are calculated on the compiled form of the network (see FlatNetwork), with
+ * the whole training set propagated in blocks. Error is the mean squared error of
+ * MeanSquaredError, and gradient is its true gradient (direction of error increase).
+ *
+ * One epoch is one iteration of the method, which may evaluate the error several times.
+ * Network weights are written back to the network after each epoch.
+ */
+public abstract class FullBatchLearning extends SupervisedLearning {
+    /**
+     * Number of patterns propagated together
+     */
+    private static final int BLOCK_SIZE = 64;
+
+    protected transient FlatNetwork flatNetwork;
+    private transient BatchPropagator propagator;
+    private transient InferenceSession session;
+
+    public FullBatchLearning() {
+        super();
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        this.flatNetwork = FlatNetwork.compile(neuralNetwork);
+        this.propagator = new BatchPropagator(flatNetwork, BLOCK_SIZE);
+        this.propagator.setExactDerivatives(true);
+        this.session = flatNetwork.newSession();
+    }
+
+    /**
+     * Runs one iteration of the method
+     *
+     * @param trainingSet training set
+     */
+    @Override
+    public void doLearningEpoch(DataSet trainingSet) {
+        this.totalNetworkError = doIteration();
+        this.epochPatternsCount = trainingSet.size();
+    }
+
+    @Override
+    protected void afterEpoch() {
+        super.afterEpoch();
+        flatNetwork.copyWeightsTo(neuralNetwork);
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        flatNetwork.copyWeightsTo(neuralNetwork);
+    }
+
+    /**
+     * Runs one iteration of the method, leaving its new weights in the compiled network
+     *
+     * @return total network error for the new weights
+     */
+    protected abstract double doIteration();
+
+    /**
+     * Calculates network error and its gradient over the whole training set
+     * for the specified weights
+     *
+     * @param weights  weights vector
+     * @param gradient array to store error gradient in
+     * @return total network error
+     */
+    protected double calculateGradient(double[] weights, double[] gradient) {
+        flatNetwork.setWeights(weights);
+        propagator.clear();
+        Iterator<DataSetRow> iterator = getTrainingSet().iterator();
+        while (iterator.hasNext()) {
+            DataSetRow row = iterator.next();
+            propagator.addPattern(row.getInput(), row.getDesiredOutput());
+        }
+        propagator.flush();
+
+        int patternsCount = propagator.getPatternsCount();
+        if (patternsCount == 0) {
+            Arrays.fill(gradient, 0d);
+            return 0d;
+        }
+
+        // propagator sums the error decreasing direction, gradient is its negated mean
+        double[] sum = propagator.getGradient();
+        for (int i = 0; i < gradient.length; i++) {
+            gradient[i] = -sum[i] / patternsCount;
+        }
+        return propagator.getSquaredErrorSum() / patternsCount;
+    }
+
+    /**
+     * Calculates network error over the whole training set for the specified weights,
+     * without the gradient
+     *
+     * @param weights weights vector
+     * @return total network error
+     */
+    protected double calculateError(double[] weights) {
+        flatNetwork.setWeights(weights);
+
+        double squaredErrorSum = 0d;
+        int patternsCount = 0;
+        Iterator<DataSetRow> iterator = getTrainingSet().iterator();
+        while (iterator.hasNext()) {
+            DataSetRow row = iterator.next();
+            double[] desiredOutput = row.getDesiredOutput();
+            double[] output = session.calculate(row.getInput());
+            for (int k = 0; k < output.length; k++) {
+                double error = desiredOutput[k] - output[k];
+                squaredErrorSum += 0.5d * error * error;
+            }
+            patternsCount++;
+        }
+        return patternsCount > 0 ? squaredErrorSum / patternsCount : 0d;
+    }
+
+    /**
+     * Weights are updated once per epoch, patterns are not learned one by one
+     */
+    @Override
+    protected void updateNetworkWeights(double[] outputError) {
+    }
+
+    protected static double dot(double[] a, double[] b) {
+        double sum = 0d;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns compiled network used for training
+     *
+     * @return compiled network, null before learning has started
+     */
+    public FlatNetwork getFlatNetwork() {
+        return flatNetwork;
+    }
+}
@@ -0,0 +1,224 @@
+package me.neuralnetwork.perceptron.learning;
+
+import me.neuralnetwork.core.data.DataSet;
+import me.neuralnetwork.core.data.DataSetRow;
+import me.neuralnetwork.core.data.FlatDataSet;
+import me.neuralnetwork.core.data.PackedDataSet;
+import me.neuralnetwork.core.exception.NeuroException;
+import me.neuralnetwork.core.flat.BatchPropagator;
+import me.neuralnetwork.core.learning.optimizer.Optimizer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous (Hogwild style) back propagation on the compiled form of the network.
+ *
+ * Several worker threads pull patterns from the training set and apply weight updates
+ * directly to the shared weights array of the compiled network, without any locking.
+ * Each worker has its own activation buffers, and updates weights after every batch of
+ * its own patterns (see setBatchSize(), one pattern by default). Updates of different
+ * workers may overlap and some of them may be partially lost; for the sparse and
+ * small updates of stochastic gradient descent this does not hurt convergence much,
+ * and it removes all synchronization from the training loop.
+ *
+ * Optimizer state is shared by workers and updated without locking as well.
+ *
+ * Rows of FlatDataSet are read in place, rows of other packed data sets (like FloatDataSet)
+ * are copied into worker arrays, and rows of other data sets are read with getRowAt().
+ * Data sets which do not support random access (see DataSet.supportsRandomAccess(), like
+ * StreamingDataSet and PrefetchingDataSet) are iterated instead: workers pull their rows
+ * from one shared iterator, copying each row under a lock; only the copy is synchronized,
+ * not the propagation.
+ *
+ * Training is not deterministic. Use getPatternsPerSecond() and getTotalNetworkError()
+ * to compare it with the single threaded rules.
+ */
+public class HogwildBackPropagation extends MatrixBackPropagation {
+    /**
+     * Number of worker threads
+     */
+    private final int workersCount;
+
+    private transient ExecutorService executor;
+    private transient BatchPropagator[] workers;
+
+    /**
+     * Index of the next training set row to learn, shared by workers
+     */
+    private final AtomicInteger nextRow = new AtomicInteger();
+
+    /**
+     * Creates asynchronous back propagation with one worker for each available processor
+     */
+    public HogwildBackPropagation() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates asynchronous back propagation with specified number of workers
+     *
+     * @param workersCount number of worker threads
+     */
+    public HogwildBackPropagation(int workersCount) {
+        super(1);
+        if (workersCount <= 0) {
+            throw new IllegalArgumentException("Workers count must be greater than zero!");
+        }
+        this.workersCount = workersCount;
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+
+        int updateSize = Math.max(getBatchSize(), 1);
+        workers = new BatchPropagator[workersCount];
+        for (int w = 0; w < workersCount; w++) {
+            workers[w] = new BatchPropagator(flatNetwork, updateSize);
+        }
+
+        executor = Executors.newFixedThreadPool(workersCount);
+    }
+
+    /**
+     * Writes weights back to the network and shuts the executor down, also if writing fails.
+     * Called by learn() after the last epoch, and also when an epoch has failed.
+     */
+    @Override
+    protected void onStop() {
+        try {
+            super.onStop();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Runs one epoch with all workers, each pulling patterns from the training
+     * set until all of them have been learned
+     *
+     * @param trainingSet training set
+     */
+    @Override
+    public void doLearningEpoch(final DataSet trainingSet) {
+        nextRow.set(0);
+        final Iterator<DataSetRow> sharedIterator = trainingSet.supportsRandomAccess() ? null : trainingSet.iterator();
+
+        List<Callable<Double>> tasks = new ArrayList<>(workersCount);
+        for (int w = 0; w < workersCount; w++) {
+            final BatchPropagator worker = workers[w];
+            tasks.add(new Callable<Double>() {
+                @Override
+                public Double call() {
+                    return learnRows(worker, trainingSet, sharedIterator);
+                }
+            });
+        }
+
+        double squaredErrorSum = 0d;
+        try {
+            for (Future<Double> result : executor.invokeAll(tasks)) {
+                squaredErrorSum += result.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            stopLearning();
+        } catch (ExecutionException ex) {
+            throw new NeuroException("Asynchronous learning worker failed!", ex.getCause());
+        }
+
+        if (nextRow.get() < trainingSet.size()) {
+            setEpochInterrupted();
+        }
+        this.epochPatternsCount = Math.min(nextRow.get(), trainingSet.size());
+        this.totalNetworkError = epochPatternsCount > 0 ? squaredErrorSum / epochPatternsCount : 0d;
+    }
+
+    /**
+     * Learns patterns pulled from the training set with one worker
+     *
+     * @param sharedIterator iterator shared by all workers, null to read rows with getRowAt()
+     * @return sum of squared errors of learned patterns
+     */
+    private double learnRows(BatchPropagator worker, DataSet trainingSet, Iterator<DataSetRow> sharedIterator) {
+        int updateSize = Math.max(getBatchSize(), 1);
+        double squaredErrorSum = 0d;
+        int rowsCount = trainingSet.size();
+        int row;
+
+        // rows of packed data sets are read without creating row objects, flat ones in place
+        FlatDataSet flatDataSet = trainingSet instanceof FlatDataSet ? (FlatDataSet) trainingSet : null;
+        PackedDataSet packedDataSet = trainingSet instanceof PackedDataSet ? (PackedDataSet) trainingSet : null;
+
+        // iterator may return the same row instance for every row, so it is copied under the lock
+        double[] input = new double[trainingSet.getInputSize()];
+        double[] desiredOutput = new double[trainingSet.getOutputSize()];
+
+        while (!isStopped() && ((row = nextRow.getAndIncrement()) < rowsCount)) {
+            if (flatDataSet != null) {
+                double[] data = flatDataSet.getData();
+                int offset = row * flatDataSet.getStride();
+                worker.addPattern(data, offset, data, offset + flatDataSet.getInputSize());
+            } else if (packedDataSet != null) {
+                packedDataSet.readRow(row, input, desiredOutput);
+                worker.addPattern(input, desiredOutput);
+            } else if (sharedIterator != null) {
+                synchronized (sharedIterator) {
+                    if (!sharedIterator.hasNext()) {
+                        break;
+                    }
+                    DataSetRow dataSetRow = sharedIterator.next();
+                    System.arraycopy(dataSetRow.getInput(), 0, input, 0, input.length);
+                    System.arraycopy(dataSetRow.getDesiredOutput(), 0, desiredOutput, 0, desiredOutput.length);
+                }
+                worker.addPattern(input, desiredOutput);
+            } else {
+                DataSetRow dataSetRow = trainingSet.getRowAt(row);
+                worker.addPattern(dataSetRow.getInput(), dataSetRow.getDesiredOutput());
+            }
+            if (worker.getPatternsCount() == updateSize) {
+                squaredErrorSum += applyUpdate(worker);
+            }
+        }
+
+        worker.flush();
+        squaredErrorSum += applyUpdate(worker);
+        return squaredErrorSum;
+    }
+
+    /**
+     * Adds gradient accumulated by worker to the shared weights, without locking
+     *
+     * @return sum of squared errors of the patterns in the update
+     */
+    private double applyUpdate(BatchPropagator worker) {
+        int patternsCount = worker.getPatternsCount();
+        double squaredErrorSum = worker.getSquaredErrorSum();
+        if (patternsCount > 0) {
+            Optimizer optimizer = getOptimizer();
+            optimizer.nextStep();
+            double[] weights = flatNetwork.getWeights();
+            double[] gradient = worker.getGradient();
+            for (int i = 0; i < weights.length; i++) {
+                if (gradient[i] != 0d) {
+                    weights[i] += optimizer.calculateWeightChange(i, gradient[i] / patternsCount, learningRate);
+                }
+            }
+        }
+
+        worker.clear();
+        return squaredErrorSum;
+    }
+
+    public int getWorkersCount() {
+        return workersCount;
+    }
+}
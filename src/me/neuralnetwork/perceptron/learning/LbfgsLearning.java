@@ -0,0 +1,232 @@
+package me.neuralnetwork.perceptron.learning;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Limited memory BFGS (L-BFGS) learning rule.
+ *
+ * Quasi-Newton method: the inverse Hessian of the error is approximated from the weight
+ * and gradient changes of the last historySize iterations, and the search direction is
+ * the gradient multiplied by that approximation (two-loop recursion). Step along the
+ * direction is found by backtracking line search with the Armijo condition.
+ *
+ * Works best for small networks and training sets that fit one batch. Learning rate
+ * and optimizer are not used.
+ */
+public class LbfgsLearning extends FullBatchLearning {
+    /**
+     * Armijo condition constant
+     */
+    private static final double SUFFICIENT_DECREASE = 1e-4d;
+    /**
+     * Maximum number of step halvings in line search
+     */
+    private static final int MAX_LINE_SEARCH_STEPS = 30;
+
+    /**
+     * Number of weight and gradient changes used to approximate the Hessian
+     */
+    private int historySize = 5;
+
+    private transient double[] weights;
+    private transient double[] gradient;
+    private transient double[] newWeights;
+    private transient double[] newGradient;
+    private transient double[] direction;
+    private transient double error;
+
+    /**
+     * Weight changes, gradient changes and their inverted dot products, in a ring buffer
+     */
+    private transient double[][] weightChanges;
+    private transient double[][] gradientChanges;
+    private transient double[] rho;
+    private transient double[] alpha;
+    private transient int historyStart;
+    private transient int historyCount;
+
+    public LbfgsLearning() {
+        super();
+    }
+
+    public LbfgsLearning(int historySize) {
+        super();
+        setHistorySize(historySize);
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+
+        int n = flatNetwork.getWeightsCount();
+        weights = flatNetwork.getWeights().clone();
+        gradient = new double[n];
+        newWeights = new double[n];
+        newGradient = new double[n];
+        direction = new double[n];
+        weightChanges = new double[historySize][n];
+        gradientChanges = new double[historySize][n];
+        rho = new double[historySize];
+        alpha = new double[historySize];
+        historyStart = 0;
+        historyCount = 0;
+
+        error = calculateGradient(weights, gradient);
+    }
+
+    @Override
+    protected void saveState(Map<String, Serializable> state) {
+        super.saveState(state);
+        state.put("weightChanges", weightChanges);
+        state.put("gradientChanges", gradientChanges);
+        state.put("rho", rho);
+        state.put("historyStart", historyStart);
+        state.put("historyCount", historyCount);
+    }
+
+    /**
+     * Restores history of weight and gradient changes. Weights, gradient and error
+     * are calculated by onStart() from the restored network weights.
+     */
+    @Override
+    protected void restoreState(Map<String, Serializable> state) {
+        super.restoreState(state);
+        weightChanges = (double[][]) state.get("weightChanges");
+        gradientChanges = (double[][]) state.get("gradientChanges");
+        rho = (double[]) state.get("rho");
+        historyStart = (Integer) state.get("historyStart");
+        historyCount = (Integer) state.get("historyCount");
+        historySize = rho.length;
+        alpha = new double[historySize];
+    }
+
+    @Override
+    protected double doIteration() {
+        calculateDirection();
+        double slope = dot(gradient, direction);
+        if (slope >= 0d) {
+            // approximation is not positive definite any more, start again from steepest descent
+            historyCount = 0;
+            calculateDirection();
+            slope = dot(gradient, direction);
+        }
+        if (slope == 0d) {
+            // zero gradient, minimum reached
+            flatNetwork.setWeights(weights);
+            stopLearning();
+            return error;
+        }
+
+        double step = historyCount > 0 ? 1d : Math.min(1d, 1d / Math.sqrt(-slope));
+        double newError = Double.NaN;
+        boolean decreased = false;
+        for (int i = 0; (i < MAX_LINE_SEARCH_STEPS) && !decreased; i++) {
+            for (int j = 0; j < weights.length; j++) {
+                newWeights[j] = weights[j] + step * direction[j];
+            }
+            newError = calculateGradient(newWeights, newGradient);
+            decreased = newError <= error + SUFFICIENT_DECREASE * step * slope;
+            step *= 0.5d;
+        }
+
+        if (!decreased) {
+            // no progress along the direction, error cannot be decreased any more
+            flatNetwork.setWeights(weights);
+            stopLearning();
+            return error;
+        }
+
+        addHistory();
+        double[] swap = weights;
+        weights = newWeights;
+        newWeights = swap;
+        swap = gradient;
+        gradient = newGradient;
+        newGradient = swap;
+        error = newError;
+        return error;
+    }
+
+    /**
+     * Calculates search direction -H * gradient with the two-loop recursion
+     */
+    private void calculateDirection() {
+        for (int i = 0; i < direction.length; i++) {
+            direction[i] = -gradient[i];
+        }
+
+        for (int k = historyCount - 1; k >= 0; k--) {
+            int h = (historyStart + k) % historySize;
+            alpha[h] = rho[h] * dot(weightChanges[h], direction);
+            axpy(-alpha[h], gradientChanges[h], direction);
+        }
+
+        if (historyCount > 0) {
+            int last = (historyStart + historyCount - 1) % historySize;
+            double scale = 1d / (rho[last] * dot(gradientChanges[last], gradientChanges[last]));
+            for (int i = 0; i < direction.length; i++) {
+                direction[i] *= scale;
+            }
+        }
+
+        for (int k = 0; k < historyCount; k++) {
+            int h = (historyStart + k) % historySize;
+            double beta = rho[h] * dot(gradientChanges[h], direction);
+            axpy(alpha[h] - beta, weightChanges[h], direction);
+        }
+    }
+
+    /**
+     * Stores weight and gradient changes of the accepted step, if they keep
+     * the approximation positive definite
+     */
+    private void addHistory() {
+        int h = (historyStart + historyCount) % historySize;
+        double[] s = weightChanges[h];
+        double[] y = gradientChanges[h];
+        for (int i = 0; i < s.length; i++) {
+            s[i] = newWeights[i] - weights[i];
+            y[i] = newGradient[i] - gradient[i];
+        }
+
+        double ys = dot(y, s);
+        if (ys <= 1e-10d) {
+            if (historyCount == historySize) {
+                // the oldest pair has been overwritten
+                historyStart = (historyStart + 1) % historySize;
+                historyCount--;
+            }
+            return;
+        }
+        rho[h] = 1d / ys;
+        if (historyCount < historySize) {
+            historyCount++;
+        } else {
+            historyStart = (historyStart + 1) % historySize;
+        }
+    }
+
+    private static void axpy(double a, double[] x, double[] y) {
+        for (int i = 0; i < y.length; i++) {
+            y[i] += a * x[i];
+        }
+    }
+
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    /**
+     * Sets number of past iterations used to approximate the Hessian.
+     * Must be set before learning starts.
+     *
+     * @param historySize number of past iterations
+     */
+    public void setHistorySize(int historySize) {
+        if (historySize <= 0) {
+            throw new IllegalArgumentException("History size must be greater than zero!");
+        }
+        this.historySize = historySize;
+    }
+}
@@ -0,0 +1,258 @@
+package me.neuralnetwork.perceptron.learning;
+
+import me.neuralnetwork.core.data.DataSetRow;
+import me.neuralnetwork.core.flat.JacobianCalculator;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Levenberg-Marquardt learning rule for the sum of squared errors.
+ *
+ * Each iteration builds the Gauss-Newton approximation of the Hessian J'J and the
+ * gradient J'e from the Jacobian J of network outputs, calculated row by row for each
+ * pattern and output, and solves the damped normal equations
+ *
+ *      (J'J + lambda * I) * weightChange = J'e
+ *
+ * with Cholesky decomposition. If the step decreases the error it is accepted and lambda
+ * decreases (closer to Gauss-Newton), otherwise lambda increases (closer to gradient descent)
+ * and the equations are solved again. Learning stops when lambda exceeds maxLambda.
+ *
+ * Memory and time grow with the square of the weights count, so it is meant for networks
+ * with up to several hundreds of weights. Learning rate and optimizer are not used.
+ */
+public class LevenbergMarquardt extends FullBatchLearning {
+    private double initialLambda = 0.001d;
+    private double lambdaFactor = 10d;
+    private double maxLambda = 1e10d;
+
+    private transient JacobianCalculator jacobian;
+
+    /**
+     * Approximated Hessian J'J and the matrix of the equations, n x n row-major
+     */
+    private transient double[] hessian;
+    private transient double[] matrix;
+    /**
+     * Error decreasing gradient J'e
+     */
+    private transient double[] gradient;
+    private transient double[] weights;
+    private transient double[] newWeights;
+    private transient double[] weightChange;
+    private transient double error;
+    private transient double lambda;
+    private transient boolean hessianValid;
+
+    public LevenbergMarquardt() {
+        super();
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+
+        int n = flatNetwork.getWeightsCount();
+        jacobian = new JacobianCalculator(flatNetwork);
+        hessian = new double[n * n];
+        matrix = new double[n * n];
+        gradient = new double[n];
+        weights = flatNetwork.getWeights().clone();
+        newWeights = new double[n];
+        weightChange = new double[n];
+        lambda = initialLambda;
+        hessianValid = false;
+    }
+
+    @Override
+    protected void saveState(Map<String, Serializable> state) {
+        super.saveState(state);
+        state.put("lambda", lambda);
+    }
+
+    /**
+     * Restores damping parameter. J'J and J'e are calculated again for the restored weights.
+     */
+    @Override
+    protected void restoreState(Map<String, Serializable> state) {
+        super.restoreState(state);
+        lambda = (Double) state.get("lambda");
+    }
+
+    @Override
+    protected double doIteration() {
+        if (!hessianValid) {
+            error = calculateHessian();
+            hessianValid = true;
+        }
+
+        int n = weights.length;
+        while (lambda <= maxLambda) {
+            System.arraycopy(hessian, 0, matrix, 0, hessian.length);
+            for (int i = 0; i < n; i++) {
+                matrix[i * n + i] += lambda;
+            }
+
+            if (solve(matrix, gradient, weightChange, n)) {
+                for (int i = 0; i < n; i++) {
+                    newWeights[i] = weights[i] + weightChange[i];
+                }
+                double newError = calculateError(newWeights);
+                if (newError < error) {
+                    double[] swap = weights;
+                    weights = newWeights;
+                    newWeights = swap;
+                    error = newError;
+                    lambda /= lambdaFactor;
+                    hessianValid = false;
+                    flatNetwork.setWeights(weights);
+                    return error;
+                }
+            }
+            lambda *= lambdaFactor;
+        }
+
+        // error cannot be decreased any more
+        flatNetwork.setWeights(weights);
+        stopLearning();
+        return error;
+    }
+
+    /**
+     * Calculates J'J and J'e for current weights over the whole training set
+     *
+     * @return total network error
+     */
+    private double calculateHessian() {
+        flatNetwork.setWeights(weights);
+        int n = weights.length;
+        for (int i = 0; i < hessian.length; i++) {
+            hessian[i] = 0d;
+        }
+        for (int i = 0; i < n; i++) {
+            gradient[i] = 0d;
+        }
+
+        double squaredErrorSum = 0d;
+        int patternsCount = 0;
+        Iterator<DataSetRow> iterator = getTrainingSet().iterator();
+        while (iterator.hasNext()) {
+            DataSetRow dataSetRow = iterator.next();
+            double[] desiredOutput = dataSetRow.getDesiredOutput();
+            double[] output = jacobian.calculate(dataSetRow.getInput());
+            for (int k = 0; k < output.length; k++) {
+                double outputError = desiredOutput[k] - output[k];
+                squaredErrorSum += 0.5d * outputError * outputError;
+
+                double[] row = jacobian.calculateRow(k);
+                for (int i = 0; i < n; i++) {
+                    double ri = row[i];
+                    if (ri == 0d) {
+                        continue;
+                    }
+                    gradient[i] += ri * outputError;
+                    // upper triangle only, the matrix is symmetric
+                    int h = i * n;
+                    for (int j = i; j < n; j++) {
+                        hessian[h + j] += ri * row[j];
+                    }
+                }
+            }
+            patternsCount++;
+        }
+
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                hessian[j * n + i] = hessian[i * n + j];
+            }
+        }
+
+        return patternsCount > 0 ? squaredErrorSum / patternsCount : 0d;
+    }
+
+    /**
+     * Solves a * x = b for symmetric positive definite matrix a with Cholesky decomposition.
+     * Matrix a is overwritten by the decomposition.
+     *
+     * @return false if matrix is not positive definite
+     */
+    private static boolean solve(double[] a, double[] b, double[] x, int n) {
+        // a = L * L', L is stored in the lower triangle
+        for (int j = 0; j < n; j++) {
+            int rj = j * n;
+            double d = a[rj + j];
+            for (int k = 0; k < j; k++) {
+                d -= a[rj + k] * a[rj + k];
+            }
+            if (d <= 0d) {
+                return false;
+            }
+            d = Math.sqrt(d);
+            a[rj + j] = d;
+
+            for (int i = j + 1; i < n; i++) {
+                int ri = i * n;
+                double s = a[ri + j];
+                for (int k = 0; k < j; k++) {
+                    s -= a[ri + k] * a[rj + k];
+                }
+                a[ri + j] = s / d;
+            }
+        }
+
+        // L * y = b
+        for (int i = 0; i < n; i++) {
+            int ri = i * n;
+            double s = b[i];
+            for (int k = 0; k < i; k++) {
+                s -= a[ri + k] * x[k];
+            }
+            x[i] = s / a[ri + i];
+        }
+
+        // L' * x = y
+        for (int i = n - 1; i >= 0; i--) {
+            double s = x[i];
+            for (int k = i + 1; k < n; k++) {
+                s -= a[k * n + i] * x[k];
+            }
+            x[i] = s / a[i * n + i];
+        }
+        return true;
+    }
+
+    public double getInitialLambda() {
+        return initialLambda;
+    }
+
+    public void setInitialLambda(double initialLambda) {
+        this.initialLambda = initialLambda;
+    }
+
+    public double getLambdaFactor() {
+        return lambdaFactor;
+    }
+
+    public void setLambdaFactor(double lambdaFactor) {
+        this.lambdaFactor = lambdaFactor;
+    }
+
+    public double getMaxLambda() {
+        return maxLambda;
+    }
+
+    public void setMaxLambda(double maxLambda) {
+        this.maxLambda = maxLambda;
+    }
+
+    /**
+     * Returns current damping parameter
+     *
+     * @return current lambda
+     */
+    public double getLambda() {
+        return lambda;
+    }
+}
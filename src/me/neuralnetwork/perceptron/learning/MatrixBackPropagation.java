@@ -0,0 +1,129 @@
+package me.neuralnetwork.perceptron.learning;
+
+import me.neuralnetwork.core.data.DataSet;
+import me.neuralnetwork.core.data.DataSetRow;
+import me.neuralnetwork.core.flat.BatchPropagator;
+import me.neuralnetwork.core.flat.FlatNetwork;
+import me.neuralnetwork.core.learning.optimizer.Optimizer;
+
+/**
+ * Mini-batch back propagation on the compiled (flat) form of the network.
+ *
+ * Training set is sliced into mini-batches (see setBatchSize()), and each of them
+ * is propagated forward and backward as matrix-matrix products, instead of pattern
+ * by pattern through Neuron and Connection objects. Weights are updated once per
+ * mini-batch with the gradient averaged over its patterns, so the learning rate does
+ * not depend on the batch size. If batch size is zero the whole training set is one batch.
+ *
+ * Network weights are written back to the network after each epoch.
+ * Network must be layered, as required by FlatNetwork.compile().
+ */
+public class MatrixBackPropagation extends BackPropagation {
+    /**
+     * Default number of patterns in a mini-batch
+     */
+    public static final int DEFAULT_BATCH_SIZE = 32;
+
+    /**
+     * Block size used when whole training set is one batch
+     */
+    private static final int EPOCH_BLOCK_SIZE = 64;
+
+    protected transient FlatNetwork flatNetwork;
+    protected transient BatchPropagator propagator;
+
+    public MatrixBackPropagation() {
+        super();
+        setBatchMode(true);
+        setBatchSize(DEFAULT_BATCH_SIZE);
+    }
+
+    public MatrixBackPropagation(int batchSize) {
+        super();
+        setBatchMode(true);
+        setBatchSize(batchSize);
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        this.flatNetwork = FlatNetwork.compile(neuralNetwork);
+        this.propagator = new BatchPropagator(flatNetwork, getBatchSize() > 0 ? getBatchSize() : EPOCH_BLOCK_SIZE);
+        this.propagator.setErrorFunction(getErrorFunction());
+    }
+
+    @Override
+    public void doLearningEpoch(DataSet trainingSet) {
+        super.doLearningEpoch(trainingSet);
+
+        // when whole epoch is one batch, patterns still staged in the last block are
+        // propagated (and weights updated) here, so the epoch error includes them
+        if (getBatchSize() == 0) {
+            doBatchWeightsUpdate();
+            this.totalNetworkError = getErrorFunction().getTotalError();
+        }
+    }
+
+    @Override
+    protected void afterEpoch() {
+        super.afterEpoch();
+        flatNetwork.copyWeightsTo(neuralNetwork);
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        flatNetwork.copyWeightsTo(neuralNetwork);
+    }
+
+    /**
+     * Stages pattern in the current mini-batch. Pattern is propagated with
+     * the rest of the batch before weights update.
+     *
+     * @param trainingElement supervised training element
+     */
+    @Override
+    protected void learnPattern(DataSetRow trainingElement) {
+        propagator.addPattern(trainingElement.getInput(), trainingElement.getDesiredOutput());
+    }
+
+    /**
+     * Propagates the rest of current mini-batch and updates weights with
+     * the averaged gradient
+     */
+    @Override
+    protected void doBatchWeightsUpdate() {
+        propagator.flush();
+        applyGradient(propagator.getGradient(), propagator.getPatternsCount());
+        propagator.clear();
+    }
+
+    /**
+     * Updates weights of the compiled network with the gradient summed over the specified
+     * number of patterns. Weight changes for the averaged gradient are calculated by the optimizer.
+     *
+     * @param gradient      summed gradient, in the order of compiled network weights
+     * @param patternsCount number of patterns in the gradient
+     */
+    protected void applyGradient(double[] gradient, int patternsCount) {
+        if (patternsCount == 0) {
+            return;
+        }
+
+        Optimizer optimizer = getOptimizer();
+        optimizer.nextStep();
+        double[] weights = flatNetwork.getWeights();
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] += optimizer.calculateWeightChange(i, gradient[i] / patternsCount, learningRate);
+        }
+    }
+
+    /**
+     * Returns compiled network used for training
+     *
+     * @return compiled network, null before learning has started
+     */
+    public FlatNetwork getFlatNetwork() {
+        return flatNetwork;
+    }
+}
@@ -0,0 +1,129 @@
+package me.neuralnetwork.perceptron.learning;
+
+import me.neuralnetwork.core.Connection;
+import me.neuralnetwork.core.Layer;
+import me.neuralnetwork.core.Neuron;
+import me.neuralnetwork.core.Weight;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Back propagation with momentum. Each weight change is the sum of the back
+ * propagation weight change and the previous weight change of that weight
+ * (stored in Weight.weightChange) multiplied by momentum:
+ *
+ *      weightChange = learningRate * neuronError * input + momentum * previousWeightChange
+ *
+ * Momentum replaces the optimizer in online mode; in batch mode accumulated gradients
+ * are applied by the optimizer as in BackPropagation.
+ */
+public class MomentumBackpropagation extends BackPropagation {
+    /**
+     * Momentum factor
+     */
+    protected double momentum = 0.25d;
+
+    public MomentumBackpropagation() {
+        super();
+    }
+
+    public MomentumBackpropagation(double momentum) {
+        super();
+        this.momentum = momentum;
+    }
+
+    /**
+     * Resets previous weight changes, so momentum from earlier learning does not
+     * affect the first iteration
+     */
+    @Override
+    protected void onStart() {
+        super.onStart();
+
+        for (Layer layer : neuralNetwork.getLayers()) {
+            for (int i = 0; i < layer.getNeuronsCount(); i++) {
+                Neuron neuron = layer.getNeuronAt(i);
+                for (int j = 0; j < neuron.getInputConnectionsCount(); j++) {
+                    neuron.getInputConnectionAt(j).getWeight().setWeightChange(0d);
+                }
+            }
+        }
+    }
+
+    /**
+     * Saves previous weight changes, in the order of network weights
+     */
+    @Override
+    protected void saveState(Map<String, Serializable> state) {
+        super.saveState(state);
+        double[] weightChanges = new double[getWeightsCount()];
+        int i = 0;
+        for (Layer layer : neuralNetwork.getLayers()) {
+            for (Neuron neuron : layer.getNeurons()) {
+                for (Connection connection : neuron.getInputConnections()) {
+                    weightChanges[i++] = connection.getWeight().getWeightChange();
+                }
+            }
+        }
+        state.put("weightChanges", weightChanges);
+    }
+
+    @Override
+    protected void restoreState(Map<String, Serializable> state) {
+        super.restoreState(state);
+        double[] weightChanges = (double[]) state.get("weightChanges");
+        int i = 0;
+        for (Layer layer : neuralNetwork.getLayers()) {
+            for (Neuron neuron : layer.getNeurons()) {
+                for (Connection connection : neuron.getInputConnections()) {
+                    connection.getWeight().setWeightChange(weightChanges[i++]);
+                }
+            }
+        }
+    }
+
+    /**
+     * This method implements weights update procedure for the single neuron
+     * with momentum.
+     *
+     * @param neuron      neuron to update weights
+     * @param weightIndex index of the first input weight of the neuron
+     */
+    @Override
+    protected void updateNeuronWeights(Neuron neuron, int weightIndex) {
+        for (int i = 0; i < neuron.getInputConnectionsCount(); i++) {
+            Connection connection = neuron.getInputConnectionAt(i);
+            double input = connection.getInput();
+            double gradientChange = learningRate * neuron.getError() * input;
+            Weight weight = connection.getWeight();
+
+            if (!isInBatchMode()) {
+                double weightChange = gradientChange + momentum * weight.getWeightChange();
+                weight.setWeightChange(weightChange);
+                weight.increaseValue(getValueChange(weightChange, gradientChange));
+            } else {
+                weight.increaseWeightChange(neuron.getError() * input);
+            }
+        }
+    }
+
+    /**
+     * Returns the amount to add to the weight value for the new weight change
+     *
+     * @param weightChange   new weight change, including momentum
+     * @param gradientChange back propagation part of the new weight change
+     * @return amount to add to the weight value
+     */
+    protected double getValueChange(double weightChange, double gradientChange) {
+        return weightChange;
+    }
+
+    public double getMomentum() {
+        return momentum;
+    }
+
+    public void setMomentum(double momentum) {
+        this.momentum = momentum;
+    }
+}
@@ -0,0 +1,27 @@
+package me.neuralnetwork.perceptron.learning;
+
+/**
+ * Back propagation with Nesterov accelerated momentum.
+ *
+ * Weight change (velocity) is calculated as in MomentumBackpropagation, but the weight
+ * value moves by the momentum part of the new change in addition to the gradient part,
+ * which is the same as evaluating the gradient at the look-ahead position:
+ *
+ *      weightChange = learningRate * neuronError * input + momentum * previousWeightChange
+ *      weight += momentum * weightChange + learningRate * neuronError * input
+ */
+public class NesterovBackpropagation extends MomentumBackpropagation {
+
+    public NesterovBackpropagation() {
+        super();
+    }
+
+    public NesterovBackpropagation(double momentum) {
+        super(momentum);
+    }
+
+    @Override
+    protected double getValueChange(double weightChange, double gradientChange) {
+        return momentum * weightChange + gradientChange;
+    }
+}
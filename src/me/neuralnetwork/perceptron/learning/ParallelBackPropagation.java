@@ -0,0 +1,220 @@
+package me.neuralnetwork.perceptron.learning;
+
+import me.neuralnetwork.core.data.DataSet;
+import me.neuralnetwork.core.data.DataSetRow;
+import me.neuralnetwork.core.exception.VectorSizeMismatchException;
+import me.neuralnetwork.core.flat.BatchPropagator;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Data-parallel, synchronous version of MatrixBackPropagation.
+ *
+ * Patterns of each mini-batch (or of the whole epoch, if batch size is zero) are
+ * split into equal shards, one for each worker. Workers run on a ForkJoinPool and
+ * compute gradients of their shards against the same weights, and the gradients are
+ * summed in worker order before the weights update. Shards and summing order depend
+ * only on the workers count, so for the same initial weights and workers count the
+ * training is deterministic.
+ *
+ * Total network error is the mean of squared errors (multiplied by 0.5) collected by
+ * workers, the same value MeanSquaredError gives; custom error function is not used.
+ */
+public class ParallelBackPropagation extends MatrixBackPropagation {
+    /**
+     * Number of patterns staged for each worker when whole epoch is one batch
+     */
+    private static final int WORKER_BLOCK_SIZE = 256;
+
+    /**
+     * Number of parallel workers
+     */
+    private final int workersCount;
+
+    private transient ForkJoinPool pool;
+    private transient BatchPropagator[] workers;
+
+    /**
+     * Inputs and desired outputs of patterns waiting to be propagated
+     */
+    private transient double[] stagedInputs;
+    private transient double[] stagedOutputs;
+    private transient int stagedCapacity;
+    private transient int stagedRows;
+
+    /**
+     * Sum of squared errors of patterns propagated in current epoch
+     */
+    private transient double epochSquaredErrorSum;
+
+    /**
+     * Creates parallel back propagation with one worker for each available processor
+     */
+    public ParallelBackPropagation() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates parallel back propagation with specified number of workers
+     *
+     * @param workersCount number of parallel workers
+     */
+    public ParallelBackPropagation(int workersCount) {
+        super();
+        if (workersCount <= 0) {
+            throw new IllegalArgumentException("Workers count must be greater than zero!");
+        }
+        this.workersCount = workersCount;
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+
+        // first worker reuses propagator created by MatrixBackPropagation
+        workers = new BatchPropagator[workersCount];
+        workers[0] = propagator;
+        workers[0].setErrorFunction(null);
+        for (int w = 1; w < workersCount; w++) {
+            workers[w] = new BatchPropagator(flatNetwork, getBatchSize() > 0 ? getBatchSize() : WORKER_BLOCK_SIZE);
+        }
+
+        stagedCapacity = getBatchSize() > 0 ? getBatchSize() : workersCount * WORKER_BLOCK_SIZE;
+        stagedInputs = new double[stagedCapacity * flatNetwork.getInputsCount()];
+        stagedOutputs = new double[stagedCapacity * flatNetwork.getOutputsCount()];
+        stagedRows = 0;
+
+        pool = new ForkJoinPool(workersCount);
+    }
+
+    /**
+     * Writes weights back to the network and shuts the pool down, also if writing fails.
+     * Called by learn() after the last epoch, and also when an epoch has failed.
+     */
+    @Override
+    protected void onStop() {
+        try {
+            super.onStop();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Override
+    protected void beforeEpoch() {
+        super.beforeEpoch();
+        epochSquaredErrorSum = 0d;
+    }
+
+    @Override
+    public void doLearningEpoch(DataSet trainingSet) {
+        super.doLearningEpoch(trainingSet);
+        this.totalNetworkError = epochPatternsCount > 0 ? epochSquaredErrorSum / epochPatternsCount : 0d;
+    }
+
+    /**
+     * Stages pattern for parallel propagation
+     *
+     * @param trainingElement supervised training element
+     */
+    @Override
+    protected void learnPattern(DataSetRow trainingElement) {
+        int inputsCount = flatNetwork.getInputsCount();
+        int outputsCount = flatNetwork.getOutputsCount();
+        double[] input = trainingElement.getInput();
+        double[] desiredOutput = trainingElement.getDesiredOutput();
+        if ((input.length != inputsCount) || (desiredOutput.length != outputsCount)) {
+            throw new VectorSizeMismatchException("Training element size does not match network dimensions!");
+        }
+
+        System.arraycopy(input, 0, stagedInputs, stagedRows * inputsCount, inputsCount);
+        System.arraycopy(desiredOutput, 0, stagedOutputs, stagedRows * outputsCount, outputsCount);
+        stagedRows++;
+
+        if (stagedRows == stagedCapacity) {
+            propagateStaged();
+        }
+    }
+
+    /**
+     * Propagates staged patterns in parallel, each worker accumulating gradient of its shard
+     */
+    private void propagateStaged() {
+        if (stagedRows == 0) {
+            return;
+        }
+
+        final int rows = stagedRows;
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ShardTask[] tasks = new ShardTask[workersCount];
+                for (int w = 0; w < workersCount; w++) {
+                    tasks[w] = new ShardTask(w, (int) ((long) rows * w / workersCount), (int) ((long) rows * (w + 1) / workersCount));
+                }
+                invokeAll(tasks);
+            }
+        });
+
+        stagedRows = 0;
+    }
+
+    /**
+     * Propagates the rest of staged patterns, sums worker gradients in worker order
+     * and updates weights with the summed gradient
+     */
+    @Override
+    protected void doBatchWeightsUpdate() {
+        propagateStaged();
+
+        double[] gradient = workers[0].getGradient();
+        int patternsCount = workers[0].getPatternsCount();
+        double squaredErrorSum = workers[0].getSquaredErrorSum();
+        for (int w = 1; w < workersCount; w++) {
+            double[] workerGradient = workers[w].getGradient();
+            for (int i = 0; i < gradient.length; i++) {
+                gradient[i] += workerGradient[i];
+            }
+            patternsCount += workers[w].getPatternsCount();
+            squaredErrorSum += workers[w].getSquaredErrorSum();
+            workers[w].clear();
+        }
+
+        applyGradient(gradient, patternsCount);
+        workers[0].clear();
+        epochSquaredErrorSum += squaredErrorSum;
+    }
+
+    public int getWorkersCount() {
+        return workersCount;
+    }
+
+    /**
+     * Propagates a range of staged patterns with one worker
+     */
+    private class ShardTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int worker;
+        private final int fromRow;
+        private final int toRow;
+
+        ShardTask(int worker, int fromRow, int toRow) {
+            this.worker = worker;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected void compute() {
+            BatchPropagator propagator = workers[worker];
+            int inputsCount = flatNetwork.getInputsCount();
+            int outputsCount = flatNetwork.getOutputsCount();
+            for (int r = fromRow; r < toRow; r++) {
+                propagator.addPattern(stagedInputs, r * inputsCount, stagedOutputs, r * outputsCount);
+            }
+            propagator.flush();
+        }
+    }
+}
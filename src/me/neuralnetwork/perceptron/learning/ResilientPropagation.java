@@ -0,0 +1,172 @@
+package me.neuralnetwork.perceptron.learning;
+
+import me.neuralnetwork.core.exception.NeuroException;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Resilient propagation (iRPROP+) learning rule.
+ *
+ * Error gradient is calculated over the whole training set (see FullBatchLearning), and
+ * each weight is changed by its own step size against the sign of its gradient, ignoring
+ * the gradient magnitude. Step size grows (increaseFactor) while the gradient keeps its
+ * sign, and shrinks (decreaseFactor) when the sign changes, which means the last step
+ * jumped over a minimum. In that case the last step is reverted if total network error
+ * increased.
+ *
+ * Gradient uses exact derivatives of transfer functions, without the flat spot fix of
+ * Sigmoid. Learning rate and optimizer are not used. Weights are updated once per epoch,
+ * so batch size must be zero.
+ */
+public class ResilientPropagation extends FullBatchLearning {
+    private double increaseFactor = 1.2d;
+    private double decreaseFactor = 0.5d;
+    private double initialDelta = 0.1d;
+    private double maxDelta = 50d;
+    private double minDelta = 1e-6d;
+
+    private transient double[] weights;
+    private transient double[] gradient;
+    private transient double error;
+    private transient double previousError;
+
+    /**
+     * Gradients of the previous iteration, step sizes and last weight changes for each weight
+     */
+    private transient double[] previousGradients;
+    private transient double[] deltas;
+    private transient double[] previousWeightChanges;
+
+    public ResilientPropagation() {
+        super();
+    }
+
+    @Override
+    protected void onStart() {
+        if (getBatchSize() > 0) {
+            throw new NeuroException("Resilient propagation updates weights once per epoch, batch size must be zero!");
+        }
+        super.onStart();
+
+        int weightsCount = flatNetwork.getWeightsCount();
+        weights = flatNetwork.getWeights().clone();
+        gradient = new double[weightsCount];
+        previousGradients = new double[weightsCount];
+        previousWeightChanges = new double[weightsCount];
+        deltas = new double[weightsCount];
+        for (int i = 0; i < weightsCount; i++) {
+            deltas[i] = initialDelta;
+        }
+
+        error = calculateGradient(weights, gradient);
+        previousError = error;
+    }
+
+    @Override
+    protected void saveState(Map<String, Serializable> state) {
+        super.saveState(state);
+        state.put("previousGradients", previousGradients);
+        state.put("deltas", deltas);
+        state.put("previousWeightChanges", previousWeightChanges);
+        state.put("previousError", previousError);
+    }
+
+    /**
+     * Restores step sizes and the last changes. Weights, gradient and error are
+     * calculated by onStart() from the restored network weights.
+     */
+    @Override
+    protected void restoreState(Map<String, Serializable> state) {
+        super.restoreState(state);
+        previousGradients = (double[]) state.get("previousGradients");
+        deltas = (double[]) state.get("deltas");
+        previousWeightChanges = (double[]) state.get("previousWeightChanges");
+        previousError = (Double) state.get("previousError");
+    }
+
+    /**
+     * Updates each weight using the sign of its gradient, then calculates
+     * error and gradient for the new weights
+     */
+    @Override
+    protected double doIteration() {
+        boolean errorIncreased = error > previousError;
+        for (int i = 0; i < weights.length; i++) {
+            updateWeight(i, errorIncreased);
+        }
+
+        previousError = error;
+        error = calculateGradient(weights, gradient);
+        return error;
+    }
+
+    /**
+     * Applies iRPROP+ update to a single weight
+     *
+     * @param index          weight index
+     * @param errorIncreased true if total network error increased in the last iteration
+     */
+    private void updateWeight(int index, boolean errorIncreased) {
+        double signChange = previousGradients[index] * gradient[index];
+
+        if (signChange > 0) {
+            deltas[index] = Math.min(deltas[index] * increaseFactor, maxDelta);
+        } else if (signChange < 0) {
+            deltas[index] = Math.max(deltas[index] * decreaseFactor, minDelta);
+            // minimum was jumped over - revert the last step if it made things worse
+            if (errorIncreased) {
+                weights[index] -= previousWeightChanges[index];
+            }
+            previousWeightChanges[index] = 0d;
+            previousGradients[index] = 0d;
+            return;
+        }
+
+        // gradient points to error increase, step goes the other way
+        double weightChange = -Math.signum(gradient[index]) * deltas[index];
+        weights[index] += weightChange;
+        previousWeightChanges[index] = weightChange;
+        previousGradients[index] = gradient[index];
+    }
+
+    public double getIncreaseFactor() {
+        return increaseFactor;
+    }
+
+    public void setIncreaseFactor(double increaseFactor) {
+        this.increaseFactor = increaseFactor;
+    }
+
+    public double getDecreaseFactor() {
+        return decreaseFactor;
+    }
+
+    public void setDecreaseFactor(double decreaseFactor) {
+        this.decreaseFactor = decreaseFactor;
+    }
+
+    public double getInitialDelta() {
+        return initialDelta;
+    }
+
+    public void setInitialDelta(double initialDelta) {
+        this.initialDelta = initialDelta;
+    }
+
+    public double getMaxDelta() {
+        return maxDelta;
+    }
+
+    public void setMaxDelta(double maxDelta) {
+        this.maxDelta = maxDelta;
+    }
+
+    public double getMinDelta() {
+        return minDelta;
+    }
+
+    public void setMinDelta(double minDelta) {
+        this.minDelta = minDelta;
+    }
+}
@@ -0,0 +1,185 @@
+package me.neuralnetwork.perceptron.learning;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Scaled conjugate gradient learning rule (Moller, 1993).
+ *
+ * Conjugate gradient method which avoids the line search: step size along the search
+ * direction is calculated from the second order approximation of the error, with the
+ * Hessian-vector product estimated by a finite difference of gradients. Scale parameter
+ * lambda regulates how far the approximation is trusted, like in Levenberg-Marquardt.
+ * Each iteration needs two evaluations of the error gradient.
+ *
+ * Learning rate and optimizer are not used.
+ */
+public class ScaledConjugateGradient extends FullBatchLearning {
+    /**
+     * Step used to estimate the Hessian-vector product
+     */
+    private static final double SIGMA = 1e-4d;
+    private static final double INITIAL_LAMBDA = 1e-6d;
+
+    private transient double[] weights;
+    private transient double[] gradient;
+    private transient double[] newWeights;
+    private transient double[] newGradient;
+    /**
+     * Search direction
+     */
+    private transient double[] direction;
+    /**
+     * Error decreasing direction (negative gradient)
+     */
+    private transient double[] residual;
+    private transient double error;
+    private transient double lambda;
+    private transient double lambdaBar;
+    private transient double delta;
+    private transient boolean success;
+    private transient int iteration;
+
+    public ScaledConjugateGradient() {
+        super();
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+
+        int n = flatNetwork.getWeightsCount();
+        weights = flatNetwork.getWeights().clone();
+        gradient = new double[n];
+        newWeights = new double[n];
+        newGradient = new double[n];
+        direction = new double[n];
+        residual = new double[n];
+
+        error = calculateGradient(weights, gradient);
+        for (int i = 0; i < n; i++) {
+            residual[i] = -gradient[i];
+            direction[i] = residual[i];
+        }
+        lambda = INITIAL_LAMBDA;
+        lambdaBar = 0d;
+        success = true;
+        iteration = 1;
+    }
+
+    @Override
+    protected void saveState(Map<String, Serializable> state) {
+        super.saveState(state);
+        state.put("direction", direction);
+        state.put("residual", residual);
+        state.put("lambda", lambda);
+        state.put("lambdaBar", lambdaBar);
+        state.put("delta", delta);
+        state.put("success", success);
+        state.put("iteration", iteration);
+    }
+
+    /**
+     * Restores search direction and step scaling. Weights, gradient and error
+     * are calculated by onStart() from the restored network weights.
+     */
+    @Override
+    protected void restoreState(Map<String, Serializable> state) {
+        super.restoreState(state);
+        direction = (double[]) state.get("direction");
+        residual = (double[]) state.get("residual");
+        lambda = (Double) state.get("lambda");
+        lambdaBar = (Double) state.get("lambdaBar");
+        delta = (Double) state.get("delta");
+        success = (Boolean) state.get("success");
+        iteration = (Integer) state.get("iteration");
+    }
+
+    @Override
+    protected double doIteration() {
+        double directionNormSqr = dot(direction, direction);
+        if (directionNormSqr == 0d) {
+            // zero gradient, minimum reached
+            flatNetwork.setWeights(weights);
+            stopLearning();
+            return error;
+        }
+
+        // second order information: delta = p' * H * p
+        if (success) {
+            double sigma = SIGMA / Math.sqrt(directionNormSqr);
+            for (int i = 0; i < weights.length; i++) {
+                newWeights[i] = weights[i] + sigma * direction[i];
+            }
+            calculateGradient(newWeights, newGradient);
+            delta = 0d;
+            for (int i = 0; i < weights.length; i++) {
+                delta += direction[i] * (newGradient[i] - gradient[i]) / sigma;
+            }
+        }
+
+        // scale and make the Hessian positive definite
+        delta += (lambda - lambdaBar) * directionNormSqr;
+        if (delta <= 0d) {
+            lambdaBar = 2d * (lambda - delta / directionNormSqr);
+            delta = -delta + lambda * directionNormSqr;
+            lambda = lambdaBar;
+        }
+
+        // step size and comparison of the real and approximated error decrease
+        double mu = dot(direction, residual);
+        double alpha = mu / delta;
+        for (int i = 0; i < weights.length; i++) {
+            newWeights[i] = weights[i] + alpha * direction[i];
+        }
+        double newError = calculateGradient(newWeights, newGradient);
+        double comparison = 2d * delta * (error - newError) / (mu * mu);
+
+        if (comparison >= 0d) {
+            // error decreased, accept the step
+            double[] swap = weights;
+            weights = newWeights;
+            newWeights = swap;
+            swap = gradient;
+            gradient = newGradient;
+            newGradient = swap;
+            error = newError;
+            lambdaBar = 0d;
+            success = true;
+
+            double residualNormSqr = 0d;
+            double residualsDot = 0d;
+            for (int i = 0; i < weights.length; i++) {
+                double newResidual = -gradient[i];
+                residualNormSqr += newResidual * newResidual;
+                residualsDot += newResidual * residual[i];
+                residual[i] = newResidual;
+            }
+
+            if (iteration % weights.length == 0) {
+                // restart with steepest descent
+                System.arraycopy(residual, 0, direction, 0, residual.length);
+            } else {
+                double beta = (residualNormSqr - residualsDot) / mu;
+                for (int i = 0; i < weights.length; i++) {
+                    direction[i] = residual[i] + beta * direction[i];
+                }
+            }
+            iteration++;
+
+            if (comparison >= 0.75d) {
+                lambda *= 0.25d;
+            }
+        } else {
+            lambdaBar = lambda;
+            success = false;
+        }
+
+        if (comparison < 0.25d) {
+            lambda += delta * (1d - comparison) / directionNormSqr;
+        }
+
+        flatNetwork.setWeights(weights);
+        return error;
+    }
+}